@@ -0,0 +1,57 @@
+package net.idothehax.theoldbroadcast.benchmark;
+
+import net.idothehax.theoldbroadcast.world.dimension.OldBroadcastBiomeSource;
+import net.idothehax.theoldbroadcast.world.dimension.OldBroadcastChunkGenerator;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.data.registries.VanillaRegistries;
+import net.minecraft.world.level.NoiseColumn;
+import net.minecraft.world.level.biome.Biomes;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.levelgen.NoiseGeneratorSettings;
+import net.minecraft.world.level.levelgen.RandomState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The placement queries structures and spawning make against the generator without a chunk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BaseColumnBenchmark {
+    private OldBroadcastChunkGenerator generator;
+    private RandomState randomState;
+    private int next;
+
+    @Setup
+    public void setup() {
+        StudioBench.bootstrap();
+        generator = new OldBroadcastChunkGenerator(new OldBroadcastBiomeSource(StudioBench.biomes().getHolderOrThrow(Biomes.PLAINS)));
+        randomState = RandomState.create(NoiseGeneratorSettings.dummy(), VanillaRegistries.createLookup().lookupOrThrow(Registries.NOISE), 42L);
+    }
+
+    @Benchmark
+    public NoiseColumn baseColumn() {
+        int i = next++ * 0x9E3779B9;
+        return generator.getBaseColumn((i >> 16) & 1023, i & 1023, StudioBench.HEIGHT, randomState);
+    }
+
+    @Benchmark
+    public int baseHeight() {
+        int i = next++ * 0x9E3779B9;
+        return generator.getBaseHeight((i >> 16) & 1023, i & 1023, Heightmap.Types.WORLD_SURFACE_WG, StudioBench.HEIGHT, randomState);
+    }
+}
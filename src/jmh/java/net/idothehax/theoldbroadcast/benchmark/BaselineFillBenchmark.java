@@ -0,0 +1,102 @@
+package net.idothehax.theoldbroadcast.benchmark;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Registry;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The generator's fill from before the bulk writer, one {@code setBlockState} per block, copied
+ * here so {@link ChunkFillBenchmark} has something to be read against. It is not the same work:
+ * the old fill wrote one story of a fixed 32-block maze, while {@code fillChunk} plans stories from
+ * the region floorplan and cuts stairs. Compare the two per chunk of output, not per block.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BaselineFillBenchmark {
+    private static final BlockState CONCRETE = Blocks.GRAY_CONCRETE.defaultBlockState();
+    private static final BlockState WOOL = Blocks.BLACK_WOOL.defaultBlockState();
+
+    private Registry<Biome> biomes;
+    private int next;
+
+    @Setup
+    public void setup() {
+        StudioBench.bootstrap();
+        biomes = StudioBench.biomes();
+    }
+
+    // The same 32x32 chunk walk as ChunkFillBenchmark
+    private ChunkPos nextChunk() {
+        int i = next++ & 1023;
+        return new ChunkPos(i & 31, i >> 5);
+    }
+
+    @Benchmark
+    public ProtoChunk baselineFill() {
+        ChunkPos chunkPos = nextChunk();
+        ProtoChunk chunk = StudioBench.chunk(chunkPos, biomes);
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                pos.set(x, 64, z);
+                chunk.setBlockState(pos, CONCRETE, false);
+
+                if (shouldGenerateWall(chunkPos.x * 16 + x, chunkPos.z * 16 + z)) {
+                    for (int y = 65; y < 80; y++) {
+                        pos.set(x, y, z);
+                        chunk.setBlockState(pos, WOOL, false);
+                    }
+                    pos.set(x, 80, z);
+                    chunk.setBlockState(pos, CONCRETE, false);
+                }
+
+                if ((x + z) % 8 == 0 && !shouldGenerateWall(chunkPos.x * 16 + x, chunkPos.z * 16 + z)) {
+                    pos.set(x, 79, z);
+                    chunk.setBlockState(pos, Blocks.REDSTONE_LAMP.defaultBlockState(), false);
+                }
+            }
+        }
+        return chunk;
+    }
+
+    private static boolean shouldGenerateWall(int worldX, int worldZ) {
+        int roomSize = 32;
+        int localX = Math.floorMod(worldX, roomSize);
+        int localZ = Math.floorMod(worldZ, roomSize);
+
+        if (localX == 0 || localX == roomSize - 1 || localZ == 0 || localZ == roomSize - 1) {
+            if ((localX == 0 && localZ >= 14 && localZ <= 18) ||
+                (localX == roomSize - 1 && localZ >= 14 && localZ <= 18) ||
+                (localZ == 0 && localX >= 14 && localX <= 18) ||
+                (localZ == roomSize - 1 && localX >= 14 && localX <= 18)) {
+                return false;
+            }
+            return true;
+        }
+
+        if (localX % 8 == 0 && localZ % 4 != 0) return true;
+        if (localZ % 8 == 0 && localX % 4 != 0) return true;
+
+        return false;
+    }
+}
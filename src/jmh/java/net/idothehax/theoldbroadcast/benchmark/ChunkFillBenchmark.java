@@ -0,0 +1,74 @@
+package net.idothehax.theoldbroadcast.benchmark;
+
+import net.idothehax.theoldbroadcast.world.dimension.OldBroadcastChunkGenerator;
+import net.idothehax.theoldbroadcast.world.dimension.StudioChunkWriter;
+import net.idothehax.theoldbroadcast.world.dimension.StudioFloorplan;
+import net.idothehax.theoldbroadcast.world.dimension.StudioFloorplans;
+import net.idothehax.theoldbroadcast.world.dimension.StudioLayout;
+import net.minecraft.core.Registry;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What {@code fillFromNoise} does per chunk: slice the region plan, write the stories and cut
+ * the stairs. The region plan is built once in setup, so only the per-chunk work is measured.
+ * {@link BaselineFillBenchmark} holds the generator's original fill for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChunkFillBenchmark {
+    @Param({"FLOORPLAN", "MAZE", "HALLS"})
+    public StudioFloorplans.Planner planner;
+
+    private Registry<Biome> biomes;
+    private StudioFloorplans plans;
+    private int next;
+
+    @Setup
+    public void setup() {
+        StudioBench.bootstrap();
+        biomes = StudioBench.biomes();
+        plans = StudioBench.floorplans(planner, 42L);
+        plans.get(0, 0);
+    }
+
+    // Walks the 32x32 chunks of region (0, 0) so every slice shape gets hit
+    private ChunkPos nextChunk() {
+        int i = next++ & 1023;
+        return new ChunkPos(i & 31, i >> 5);
+    }
+
+    @Benchmark
+    public ProtoChunk fillChunk() {
+        ChunkPos pos = nextChunk();
+        ProtoChunk chunk = StudioBench.chunk(pos, biomes);
+        StudioFloorplan plan = plans.forChunk(pos.x, pos.z);
+        int written = StudioChunkWriter.write(chunk, plan.slice(pos.x, pos.z).columns(), OldBroadcastChunkGenerator.DEFAULT_FLOORS);
+        StudioChunkWriter.writeStairs(chunk, plan.stairs(), written);
+        return chunk;
+    }
+
+    @Benchmark
+    public StudioLayout.Slice slice() {
+        ChunkPos pos = nextChunk();
+        return plans.forChunk(pos.x, pos.z).slice(pos.x, pos.z);
+    }
+}
@@ -0,0 +1,56 @@
+package net.idothehax.theoldbroadcast.benchmark;
+
+import net.idothehax.theoldbroadcast.world.dimension.StudioColumn;
+import net.idothehax.theoldbroadcast.world.dimension.StudioFloorplan;
+import net.idothehax.theoldbroadcast.world.dimension.StudioFloorplans;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Region planning, which replaced the old per-column {@code shouldGenerateWall} checks, and the
+ * column lookups that stand in for them now.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FloorplanBenchmark {
+    @Param({"FLOORPLAN", "MAZE", "HALLS"})
+    public StudioFloorplans.Planner planner;
+
+    private StudioFloorplans plans;
+    private int nextRegion;
+    private int nextColumn;
+
+    @Setup
+    public void setup() {
+        StudioBench.bootstrap();
+        plans = StudioBench.floorplans(planner, 42L);
+    }
+
+    // A region nobody has asked for yet, so every call builds a plan from scratch
+    @Benchmark
+    public StudioFloorplan buildRegion() {
+        return plans.get(nextRegion++, 1000);
+    }
+
+    @Benchmark
+    public StudioColumn columnAt() {
+        // Scattered over a few regions to include the cache lookup
+        int i = nextColumn++ * 0x9E3779B9;
+        return plans.columnAt((i >> 16) & 2047, i & 2047);
+    }
+}
@@ -0,0 +1,61 @@
+package net.idothehax.theoldbroadcast.benchmark;
+
+import net.idothehax.theoldbroadcast.world.structure.RoomTemplate;
+import net.minecraft.core.Registry;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.WorldGenLevel;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.levelgen.structure.BoundingBox;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Room decoration as {@code StudioRoomPiece.postProcess} runs it: one bundled template placed
+ * into a 30x30 room, clipped to a single chunk the way structure post-processing clips it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoomTemplateBenchmark {
+    @Param({"cinema", "broadcast_room", "editing_lab", "haunted_house_set", "sci_fi_set", "children_show_set", "storage", "antenna_room", "corridor"})
+    public String template;
+
+    // Room interior spanning four chunks, as the 32-block tiled layouts produce
+    private static final BoundingBox ROOM = new BoundingBox(1, 65, 1, 30, 79, 30);
+    private static final BoundingBox CHUNK = new BoundingBox(0, 0, 0, 15, 255, 15);
+
+    private RoomTemplate room;
+    private WorldGenLevel level;
+    private long seed;
+
+    @Setup
+    public void setup() throws Exception {
+        StudioBench.bootstrap();
+        room = StudioBench.templates().get(template);
+        Registry<Biome> biomes = StudioBench.biomes();
+        ProtoChunk chunk = StudioBench.chunk(new ChunkPos(0, 0), biomes);
+        level = StudioBench.level(chunk);
+        // Place once up front so a template reaching past the proxy fails setup, not a measurement
+        room.place(level, ROOM, CHUNK, seed++);
+    }
+
+    @Benchmark
+    public void placeInChunk() {
+        room.place(level, ROOM, CHUNK, seed++);
+    }
+}
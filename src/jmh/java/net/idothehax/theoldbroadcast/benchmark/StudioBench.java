@@ -0,0 +1,158 @@
+package net.idothehax.theoldbroadcast.benchmark;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.mojang.serialization.JsonOps;
+import com.mojang.serialization.Lifecycle;
+import net.idothehax.theoldbroadcast.world.dimension.OldBroadcastBiomeSource;
+import net.idothehax.theoldbroadcast.world.dimension.OldBroadcastChunkGenerator;
+import net.idothehax.theoldbroadcast.world.dimension.StudioFloorplans;
+import net.idothehax.theoldbroadcast.world.structure.RoomTemplate;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.HolderGetter;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.data.registries.VanillaRegistries;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.WorldGenLevel;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.BiomeGenerationSettings;
+import net.minecraft.world.level.biome.BiomeSpecialEffects;
+import net.minecraft.world.level.biome.Biomes;
+import net.minecraft.world.level.biome.MobSpawnSettings;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.chunk.UpgradeData;
+import net.minecraft.world.level.levelgen.NoiseGeneratorSettings;
+import net.minecraft.world.level.levelgen.RandomState;
+import net.minecraft.world.level.levelgen.synth.NormalNoise;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory stand-ins for the parts of a running server the studio generator touches, so the
+ * benchmarks only need the game's classes and a bootstrapped registry, never a world or a client.
+ */
+final class StudioBench {
+    // Same build height as the old_broadcast dimension type
+    static final LevelHeightAccessor HEIGHT = LevelHeightAccessor.create(0, 256);
+
+    private static boolean bootstrapped;
+    private static HolderGetter<NormalNoise.NoiseParameters> noises;
+
+    private StudioBench() {
+    }
+
+    static synchronized void bootstrap() {
+        if (!bootstrapped) {
+            SharedConstants.tryDetectVersion();
+            Bootstrap.bootStrap();
+            bootstrapped = true;
+        }
+    }
+
+    /**
+     * A registry holding a single featureless biome. Chunk sections fill their biome palette
+     * with plains, so that is the key it goes under.
+     */
+    static Registry<Biome> biomes() {
+        Biome biome = new Biome.BiomeBuilder()
+                .hasPrecipitation(false)
+                .temperature(0.5F)
+                .downfall(0.0F)
+                .specialEffects(new BiomeSpecialEffects.Builder().fogColor(0).waterColor(0).waterFogColor(0).skyColor(0).build())
+                .mobSpawnSettings(MobSpawnSettings.EMPTY)
+                .generationSettings(BiomeGenerationSettings.EMPTY)
+                .build();
+        MappedRegistry<Biome> registry = new MappedRegistry<>(Registries.BIOME, Lifecycle.stable());
+        registry.register(Biomes.PLAINS, biome, Lifecycle.stable());
+        registry.freeze();
+        return registry;
+    }
+
+    static ProtoChunk chunk(ChunkPos pos, Registry<Biome> biomes) {
+        return new ProtoChunk(pos, UpgradeData.EMPTY, HEIGHT, biomes, null);
+    }
+
+    static OldBroadcastChunkGenerator generator(StudioFloorplans.Planner planner, Registry<Biome> biomes) {
+        return new OldBroadcastChunkGenerator(new OldBroadcastBiomeSource(biomes.getHolderOrThrow(Biomes.PLAINS)), planner, OldBroadcastChunkGenerator.DEFAULT_FLOORS);
+    }
+
+    /**
+     * The random state a server builds for a world with this seed whose generator is not
+     * noise-based, as the studio's is.
+     */
+    static synchronized RandomState randomState(long seed) {
+        if (noises == null) {
+            noises = VanillaRegistries.createLookup().lookupOrThrow(Registries.NOISE);
+        }
+        return RandomState.create(NoiseGeneratorSettings.dummy(), noises, seed);
+    }
+
+    /**
+     * The floorplans a world with this seed and layout gets, derived the way the generator
+     * derives them.
+     */
+    static StudioFloorplans floorplans(StudioFloorplans.Planner planner, long seed) {
+        return generator(planner, biomes()).floorplans(randomState(seed));
+    }
+
+    /**
+     * A world that only knows one chunk. Block reads and writes go to the chunk, anything else
+     * throws, so a benchmark that starts depending on more of the level fails loudly.
+     */
+    static WorldGenLevel level(ProtoChunk chunk) {
+        return (WorldGenLevel) Proxy.newProxyInstance(WorldGenLevel.class.getClassLoader(), new Class<?>[]{WorldGenLevel.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "setBlock" -> {
+                chunk.setBlockState((BlockPos) args[0], (BlockState) args[1], false);
+                yield true;
+            }
+            case "getBlockState" -> chunk.getBlockState((BlockPos) args[0]);
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            // JMH and stack traces print the level; keep that from throwing
+            case "toString" -> "StudioBench level for " + chunk.getPos();
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    /**
+     * The JSON of the mod's bundled room templates by file name. The mod's own blocks are not
+     * registered outside the game, so VHS tapes are swapped for a vanilla block with the same
+     * footprint.
+     */
+    static Map<String, JsonElement> templateFiles() throws IOException, URISyntaxException {
+        URL directory = StudioBench.class.getClassLoader().getResource("data/theoldbroadcast/studio_rooms");
+        if (directory == null) {
+            throw new IOException("Room templates are not on the benchmark classpath");
+        }
+        Map<String, JsonElement> templates = new TreeMap<>();
+        try (Stream<Path> files = Files.list(Path.of(directory.toURI()))) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString().replace(".json", "");
+                String json = Files.readString(file).replace("theoldbroadcast:vhs_tape", "minecraft:black_carpet");
+                templates.put(name, JsonParser.parseString(json));
+            }
+        }
+        return templates;
+    }
+
+    static Map<String, RoomTemplate> templates() throws IOException, URISyntaxException {
+        Map<String, RoomTemplate> templates = new TreeMap<>();
+        templateFiles().forEach((name, json) -> templates.put(name, RoomTemplate.CODEC.parse(JsonOps.INSTANCE, json).getOrThrow(false, error -> {
+        })));
+        return templates;
+    }
+}
@@ -0,0 +1,172 @@
+package net.idothehax.theoldbroadcast.benchmark;
+
+import com.google.gson.JsonElement;
+import it.unimi.dsi.fastutil.HashCommon;
+import net.idothehax.theoldbroadcast.Theoldbroadcast;
+import net.idothehax.theoldbroadcast.world.dimension.OldBroadcastChunkGenerator;
+import net.idothehax.theoldbroadcast.world.dimension.StudioFloorplans;
+import net.idothehax.theoldbroadcast.world.structure.RoomTemplates;
+import net.idothehax.theoldbroadcast.world.structure.StudioGeneration;
+import net.minecraft.commands.arguments.blocks.BlockStateParser;
+import net.minecraft.core.Registry;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.levelgen.RandomState;
+
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Headless reproducibility check for studio generation. Generates a fixed grid of chunks for a
+ * few fixed seeds and every layout through {@link StudioGeneration}, which runs the generator's
+ * {@code fillFromNoise} and the studio structure's pieces, with the random state a server derives
+ * from the seed, and hashes each chunk's blocks. The hashes must match the golden file.
+ * <p>
+ * Runs as part of {@code ./gradlew check}, or alone through {@code ./gradlew checkWorldgen};
+ * {@code -Pbless} rewrites the golden hashes from the current code instead of checking them, and
+ * is how intended generation changes land.
+ * <p>
+ * Timing is kept apart from the check, since it depends on the machine: {@code ./gradlew
+ * timeWorldgen} measures the same grid against the budget in its own file, and is never part of
+ * {@code check}. {@code -Pbless} on that task rewrites the budget.
+ */
+public final class WorldgenChecksum {
+    private static final long[] SEEDS = {0L, 42L, -6813526139423316137L};
+    // Straddles the corner where four regions meet, so region borders are covered
+    private static final int GRID_MIN = -2;
+    private static final int GRID_MAX = 1;
+    private static final String BUDGET_KEY = "budget.micros_per_chunk";
+
+    private static final Map<BlockState, Integer> STATE_HASHES = new IdentityHashMap<>();
+
+    private WorldgenChecksum() {
+    }
+
+    /**
+     * Arguments are the golden or budget file, then {@code check}, {@code bless}, {@code time}
+     * or {@code bless-time}.
+     */
+    public static void main(String[] args) throws Exception {
+        Path file = Path.of(args[0]);
+        String mode = args.length > 1 ? args[1] : "check";
+
+        StudioBench.bootstrap();
+        Map<ResourceLocation, JsonElement> files = new TreeMap<>();
+        StudioBench.templateFiles().forEach((name, json) -> files.put(new ResourceLocation(Theoldbroadcast.MODID, name), json));
+        RoomTemplates.load(files);
+        Registry<Biome> biomes = StudioBench.biomes();
+
+        Properties expected = new Properties();
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                expected.load(reader);
+            }
+        }
+
+        switch (mode) {
+            case "check" -> check(file, expected, generateAll(biomes));
+            case "bless" -> {
+                Map<String, String> hashes = generateAll(biomes);
+                write(file, "# Studio worldgen golden hashes, written by ./gradlew checkWorldgen -Pbless", hashes);
+                System.out.printf("Blessed %d chunk hashes%n", hashes.size());
+            }
+            case "time", "bless-time" -> time(file, expected, biomes, mode.equals("bless-time"));
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+    }
+
+    private static void check(Path golden, Properties expected, Map<String, String> hashes) {
+        if (expected.stringPropertyNames().stream().noneMatch(hashes::containsKey)) {
+            System.out.println("No golden hashes in " + golden + "; run ./gradlew checkWorldgen -Pbless and commit the file");
+            System.exit(1);
+        }
+
+        int failures = 0;
+        for (Map.Entry<String, String> entry : hashes.entrySet()) {
+            String want = expected.getProperty(entry.getKey());
+            if (!entry.getValue().equals(want)) {
+                System.out.printf("%s: expected %s, generated %s%n", entry.getKey(), want == null ? "nothing" : want, entry.getValue());
+                failures++;
+            }
+        }
+        if (failures > 0) {
+            System.out.println(failures + " worldgen checks failed; if the change is intended, rerun with -Pbless");
+            System.exit(1);
+        }
+        System.out.printf("All %d chunk hashes match%n", hashes.size());
+    }
+
+    private static void time(Path budgetFile, Properties expected, Registry<Biome> biomes, boolean bless) throws Exception {
+        // One untimed pass so class loading and JIT warm-up stay out of the timing
+        int chunks = generateAll(biomes).size();
+        long start = System.nanoTime();
+        generateAll(biomes);
+        double microsPerChunk = (System.nanoTime() - start) / 1000.0 / chunks;
+
+        if (bless) {
+            // Twice the time just measured, leaving room for noisy runs on the same machine
+            write(budgetFile, "# Studio worldgen time budget, written by ./gradlew timeWorldgen -Pbless",
+                    Map.of(BUDGET_KEY, String.valueOf((int) Math.ceil(microsPerChunk * 2))));
+            System.out.printf("Blessed a budget for %.1f us per chunk%n", microsPerChunk);
+            return;
+        }
+
+        double budget = Double.parseDouble(expected.getProperty(BUDGET_KEY, "0"));
+        System.out.printf("Generated %d chunks at %.1f us per chunk (budget %.0f us)%n", chunks, microsPerChunk, budget);
+        if (budget > 0 && microsPerChunk > budget) {
+            System.out.println("Generation is slower than the stored budget");
+            System.exit(1);
+        }
+    }
+
+    // Written by hand rather than through Properties.store, so the keys stay sorted and diffs readable
+    private static void write(Path file, String header, Map<String, String> values) throws Exception {
+        List<String> lines = new ArrayList<>();
+        lines.add(header);
+        new TreeMap<>(values).forEach((key, value) -> lines.add(key + "=" + value));
+        Files.write(file, lines);
+    }
+
+    private static Map<String, String> generateAll(Registry<Biome> biomes) {
+        Map<String, String> hashes = new TreeMap<>();
+        for (StudioFloorplans.Planner planner : StudioFloorplans.Planner.values()) {
+            OldBroadcastChunkGenerator generator = StudioBench.generator(planner, biomes);
+            for (long seed : SEEDS) {
+                RandomState randomState = StudioBench.randomState(seed);
+                for (int cz = GRID_MIN; cz <= GRID_MAX; cz++) {
+                    for (int cx = GRID_MIN; cx <= GRID_MAX; cx++) {
+                        ProtoChunk chunk = StudioGeneration.generate(generator, randomState, StudioBench.HEIGHT, biomes, new ChunkPos(cx, cz));
+                        hashes.put(planner.getSerializedName() + "." + seed + "." + cx + "." + cz, Long.toHexString(hash(chunk)));
+                    }
+                }
+            }
+        }
+        return hashes;
+    }
+
+    // Hashes block states by their serialized form, so the result does not depend on registry ids
+    private static long hash(ProtoChunk chunk) {
+        long hash = 0;
+        LevelChunkSection[] sections = chunk.getSections();
+        for (int s = 0; s < sections.length; s++) {
+            if (sections[s].hasOnlyAir()) continue;
+            for (int i = 0; i < 4096; i++) {
+                BlockState state = sections[s].getBlockState(i & 15, i >> 8, i >> 4 & 15);
+                int stateHash = STATE_HASHES.computeIfAbsent(state, key -> BlockStateParser.serialize(key).hashCode());
+                hash = HashCommon.mix(hash + ((long) s << 12 | i) * 31 + stateHash);
+            }
+        }
+        return hash;
+    }
+}
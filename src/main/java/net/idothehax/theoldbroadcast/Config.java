@@ -30,6 +30,24 @@ public class Config {
 
     public static final ForgeConfigSpec.BooleanValue FORCE_43_ASPECT_RATIO = BUILDER.comment("If true, only 4:3 aspect ratio resolutions will be shown in video settings.").define("force43AspectRatio", true);
 
+    private static final ForgeConfigSpec.IntValue PREGEN_MAX_IN_FLIGHT = BUILDER.comment("How many chunks /oldbroadcast pregen generates at once").defineInRange("pregenMaxInFlight", 16, 1, 256);
+
+    private static final ForgeConfigSpec.DoubleValue PREGEN_MAX_MSPT = BUILDER.comment("/oldbroadcast pregen pauses while the average tick time is above this many milliseconds").defineInRange("pregenMaxMspt", 40.0, 1.0, 1000.0);
+
+    private static final ForgeConfigSpec.EnumValue<StudioStorage> STUDIO_STORAGE = BUILDER.comment(
+            "How studio chunks are saved. FULL saves them like any other chunk. EPHEMERAL only saves chunks a player has changed",
+            "and generates the rest again from the seed. DELTA saves nothing but the differences players made to the generated chunks").defineEnum("studioStorage", StudioStorage.FULL);
+
+    private static final ForgeConfigSpec.IntValue STUDIO_SPAWN_REGION_RADIUS = BUILDER.comment("Arrivals in the studio are spread over the rooms of the entrance's region and this many regions around it").defineInRange("studioSpawnRegionRadius", 0, 0, 4);
+
+    private static final ForgeConfigSpec.IntValue SANITY_TICK_BUDGET_MICROS = BUILDER.comment("Time per tick the sanity update may spend, in microseconds; players over budget are picked up on the next tick").defineInRange("sanityTickBudgetMicros", 1000, 50, 50000);
+
+    private static final ForgeConfigSpec.IntValue SANITY_EFFECTS_THRESHOLD = BUILDER.comment("Sanity at or below which players in the studio get slowness and weakness").defineInRange("sanityEffectsThreshold", 20, 0, 100);
+
+    private static final ForgeConfigSpec.IntValue SANITY_BLINDNESS_THRESHOLD = BUILDER.comment("Sanity at or below which players in the studio also go blind").defineInRange("sanityBlindnessThreshold", 10, 0, 100);
+
+    private static final ForgeConfigSpec.IntValue SANITY_DAMAGE_THRESHOLD = BUILDER.comment("Sanity at or below which players in the studio also take damage every second").defineInRange("sanityDamageThreshold", 5, 0, 100);
+
     static final ForgeConfigSpec SPEC = BUILDER.build();
 
     public static boolean logDirtBlock;
@@ -37,6 +55,14 @@ public class Config {
     public static String magicNumberIntroduction;
     public static Set<Item> items;
     public static boolean force43AspectRatio;
+    public static int pregenMaxInFlight;
+    public static double pregenMaxMspt;
+    public static StudioStorage studioStorage;
+    public static int studioSpawnRegionRadius;
+    public static int sanityTickBudgetMicros;
+    public static int sanityEffectsThreshold;
+    public static int sanityBlindnessThreshold;
+    public static int sanityDamageThreshold;
 
     private static boolean validateItemName(final Object obj) {
         return obj instanceof final String itemName && ForgeRegistries.ITEMS.containsKey(new ResourceLocation(itemName));
@@ -48,8 +74,22 @@ public class Config {
         magicNumber = MAGIC_NUMBER.get();
         magicNumberIntroduction = MAGIC_NUMBER_INTRODUCTION.get();
         force43AspectRatio = FORCE_43_ASPECT_RATIO.get();
+        pregenMaxInFlight = PREGEN_MAX_IN_FLIGHT.get();
+        pregenMaxMspt = PREGEN_MAX_MSPT.get();
+        studioStorage = STUDIO_STORAGE.get();
+        studioSpawnRegionRadius = STUDIO_SPAWN_REGION_RADIUS.get();
+        sanityTickBudgetMicros = SANITY_TICK_BUDGET_MICROS.get();
+        sanityEffectsThreshold = SANITY_EFFECTS_THRESHOLD.get();
+        sanityBlindnessThreshold = SANITY_BLINDNESS_THRESHOLD.get();
+        sanityDamageThreshold = SANITY_DAMAGE_THRESHOLD.get();
 
         // convert the list of strings into a set of items
         items = ITEM_STRINGS.get().stream().map(itemName -> ForgeRegistries.ITEMS.getValue(new ResourceLocation(itemName))).collect(Collectors.toSet());
     }
+
+    public enum StudioStorage {
+        FULL,
+        EPHEMERAL,
+        DELTA
+    }
 }
@@ -0,0 +1,163 @@
+package net.idothehax.theoldbroadcast;
+
+import net.minecraft.core.Direction;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.Mth;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.capabilities.CapabilityManager;
+import net.minecraftforge.common.capabilities.CapabilityToken;
+import net.minecraftforge.common.capabilities.ICapabilitySerializable;
+import net.minecraftforge.common.capabilities.RegisterCapabilitiesEvent;
+import net.minecraftforge.common.util.LazyOptional;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A player's sanity, attached to every player as a capability. Kept as plain fields so the
+ * per-tick handling never goes through NBT; it is only written out when the player is saved.
+ */
+@Mod.EventBusSubscriber(modid = Theoldbroadcast.MODID, bus = Mod.EventBusSubscriber.Bus.MOD)
+public class PlayerSanity {
+    public static final Capability<PlayerSanity> CAPABILITY = CapabilityManager.get(new CapabilityToken<>() {
+    });
+    public static final ResourceLocation ID = ResourceLocation.fromNamespaceAndPath(Theoldbroadcast.MODID, "sanity");
+
+    private int value = SanityHandler.MAX_SANITY;
+    // Which tier of low-sanity effects was last applied; server-side only, never synced
+    private int effectStage;
+    // Strength of the client's static overlay, 0 to 255
+    private int staticIntensity;
+
+    // What the client was last sent; a synced value of -1 means its next packet is a keyframe
+    private int syncedValue = -1;
+    private int syncedStatic;
+    private long lastSentTick = Long.MIN_VALUE;
+    // Changed since the last sync to the client
+    private boolean dirty = true;
+    // Waiting in the scheduler's queue for its update
+    private boolean queued;
+
+    @SubscribeEvent
+    public static void onRegisterCapabilities(RegisterCapabilitiesEvent event) {
+        event.register(PlayerSanity.class);
+    }
+
+    public int value() {
+        return value;
+    }
+
+    public void set(int value) {
+        value = Mth.clamp(value, 0, SanityHandler.MAX_SANITY);
+        if (value != this.value) {
+            this.value = value;
+            dirty = true;
+        }
+    }
+
+    public int effectStage() {
+        return effectStage;
+    }
+
+    public void setEffectStage(int effectStage) {
+        this.effectStage = effectStage;
+    }
+
+    public int staticIntensity() {
+        return staticIntensity;
+    }
+
+    public void setStaticIntensity(int staticIntensity) {
+        staticIntensity = Mth.clamp(staticIntensity, 0, 255);
+        if (staticIntensity != this.staticIntensity) {
+            this.staticIntensity = staticIntensity;
+            dirty = true;
+        }
+    }
+
+    public boolean isQueued() {
+        return queued;
+    }
+
+    public void setQueued(boolean queued) {
+        this.queued = queued;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public int syncedValue() {
+        return syncedValue;
+    }
+
+    public int syncedStatic() {
+        return syncedStatic;
+    }
+
+    public long lastSentTick() {
+        return lastSentTick;
+    }
+
+    /**
+     * Makes the next sync send every field in full, for a client whose copy may be missing or
+     * stale.
+     */
+    public void requestKeyframe() {
+        syncedValue = -1;
+        dirty = true;
+    }
+
+    public void markSynced(long tick) {
+        syncedValue = value;
+        syncedStatic = staticIntensity;
+        lastSentTick = tick;
+        dirty = false;
+    }
+
+    /**
+     * Carries sanity over to the player entity created on returning from the End. The new entity
+     * still has to be synced.
+     */
+    public void copyFrom(PlayerSanity other) {
+        value = other.value;
+        effectStage = other.effectStage;
+        staticIntensity = other.staticIntensity;
+        requestKeyframe();
+    }
+
+    public CompoundTag save() {
+        CompoundTag tag = new CompoundTag();
+        tag.putInt("Value", value);
+        tag.putInt("EffectStage", effectStage);
+        return tag;
+    }
+
+    public void load(CompoundTag tag) {
+        value = Mth.clamp(tag.getInt("Value"), 0, SanityHandler.MAX_SANITY);
+        effectStage = tag.getInt("EffectStage");
+        dirty = true;
+    }
+
+    public static class Provider implements ICapabilitySerializable<CompoundTag> {
+        private final PlayerSanity sanity = new PlayerSanity();
+        private final LazyOptional<PlayerSanity> optional = LazyOptional.of(() -> sanity);
+
+        @Override
+        public @NotNull <T> LazyOptional<T> getCapability(@NotNull Capability<T> cap, @Nullable Direction side) {
+            return CAPABILITY.orEmpty(cap, optional);
+        }
+
+        @Override
+        public CompoundTag serializeNBT() {
+            return sanity.save();
+        }
+
+        @Override
+        public void deserializeNBT(CompoundTag tag) {
+            sanity.load(tag);
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package net.idothehax.theoldbroadcast;
 
 import net.idothehax.theoldbroadcast.client.ModShaders;
+import net.idothehax.theoldbroadcast.client.SanityClientHandler;
 import net.idothehax.theoldbroadcast.client.StaticOverlayFramebuffer;
 import net.minecraft.client.Minecraft;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.entity.player.Player;
 import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
 import net.minecraftforge.client.event.RenderGuiEvent;
 import net.minecraftforge.client.event.RenderLevelStageEvent;
 import net.minecraftforge.event.TickEvent.ClientTickEvent;
@@ -26,6 +28,7 @@ public class SanityClientEvents {
     private static float currentOpacity = 0.0f;
     private static boolean screenCaptured = false;
     private static int clientSanity = 100;
+    private static int clientStaticIntensity = 0;
     private static final Logger LOGGER = LogManager.getLogger();
 
     public static void setClientSanity(int sanity) {
@@ -33,6 +36,15 @@ public class SanityClientEvents {
         LOGGER.info("[SanityClientEvents] setClientSanity called: {}", sanity);
     }
 
+    public static void setStaticIntensity(int staticIntensity) {
+        clientStaticIntensity = staticIntensity;
+    }
+
+    @SubscribeEvent
+    public static void onLoggingOut(ClientPlayerNetworkEvent.LoggingOut event) {
+        SanityClientHandler.reset();
+    }
+
     @SubscribeEvent
     public static void onClientTick(ClientTickEvent event) {
         if (event.phase == ClientTickEvent.Phase.END) {
@@ -49,13 +61,10 @@ public class SanityClientEvents {
             if (player != null && mc.level != null && mc.screen == null) {
                 ResourceLocation dim = mc.level.dimension().location();
                 if (dim.equals(ResourceLocation.fromNamespaceAndPath(Theoldbroadcast.MODID, "old_broadcast"))) {
-                    int sanity = clientSanity;
-                    if (sanity < 100) {
+                    // The server decides how strong the static is
+                    if (clientStaticIntensity > 0) {
                         shouldApplyEffect = true;
-                        // More dramatic opacity curve for better visual effect
-                        float sanityRatio = sanity / 100.0f;
-                        currentOpacity = (1.0f - sanityRatio) * (1.0f - sanityRatio); // Quadratic curve
-                        currentOpacity = Math.min(currentOpacity, 0.8f); // Cap at 80% opacity
+                        currentOpacity = clientStaticIntensity / 255.0f;
                     }
                 }
             }
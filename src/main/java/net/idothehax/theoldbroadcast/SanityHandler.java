@@ -1,134 +1,193 @@
 package net.idothehax.theoldbroadcast;
 
-import net.minecraft.core.BlockPos;
-import net.minecraft.core.registries.Registries;
 import net.minecraft.nbt.CompoundTag;
-import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.util.Mth;
-import net.minecraft.world.damagesource.DamageSource;
-import net.minecraft.world.damagesource.DamageTypes;
+import net.minecraft.world.effect.MobEffect;
 import net.minecraft.world.effect.MobEffectInstance;
 import net.minecraft.world.effect.MobEffects;
+import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.player.Player;
-import net.minecraft.world.level.Level;
-import net.idothehax.theoldbroadcast.network.ModNetwork;
-import net.idothehax.theoldbroadcast.network.SanitySyncPacket;
-import net.minecraftforge.event.TickEvent;
-import net.minecraftforge.event.TickEvent.PlayerTickEvent;
+import net.minecraftforge.event.AttachCapabilitiesEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
-import net.minecraftforge.network.PacketDistributor;
+
+import javax.annotation.Nullable;
 
 /**
  * Handles player sanity in the Old Broadcast dimension.
  */
 @Mod.EventBusSubscriber(modid = Theoldbroadcast.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
 public class SanityHandler {
-    public static final String SANITY_TAG = "OldBroadcastSanity";
+    // Persistent data key sanity was stored under before it became a capability
+    private static final String SANITY_TAG = "OldBroadcastSanity";
     public static final int MAX_SANITY = 100;
     private static final int MIN_SANITY = 0;
+    private static final int EFFECT_REFRESH_TICKS = SanityScheduler.WINDOW * 2;
 
-    @SubscribeEvent
-    public static void onPlayerTick(PlayerTickEvent event) {
-        if (event.phase != TickEvent.Phase.END || event.player.level().isClientSide) return;
-
-        Player player = event.player;
-        Level level = player.level();
-        ResourceLocation dim = level.dimension().location();
+    /**
+     * One second's worth of sanity for a player in the dimension. Called by
+     * {@link SanityScheduler} once every {@link SanityScheduler#WINDOW} ticks per player.
+     */
+    static void update(ServerPlayer player, PlayerSanity data, int visit) {
+        int sanity = data.value();
 
-        // Only process in Old Broadcast dimension
-        if (!dim.equals(ResourceLocation.fromNamespaceAndPath(Theoldbroadcast.MODID, "old_broadcast"))) {
-            return;
-        }
+        // Decay, safe zones and the rest come from the data pack's sanity modifiers
+        sanity += SanityModifiers.evaluate(player);
 
-        CompoundTag data = player.getPersistentData();
-        int sanity = data.contains(SANITY_TAG) ? data.getInt(SANITY_TAG) : MAX_SANITY;
-        int oldSanity = sanity;
+        // Clamp sanity values
+        sanity = Mth.clamp(sanity, MIN_SANITY, MAX_SANITY);
+        data.set(sanity);
+        SanityRecords.record(player, sanity);
 
-        // Only decrease sanity every 20 ticks (1 second) using player's tick count
-        if (player.tickCount % 20 == 0) {
-            // Decrease sanity over time in the dimension
-            sanity = Math.max(MIN_SANITY, sanity - 1);
+        // Apply effects based on sanity level
+        data.setEffectStage(applySanityEffects(player, data, sanity));
+        data.setStaticIntensity(staticIntensity(sanity));
 
-            // Restore sanity in high-light safe zones (light level 12+)
-            BlockPos pos = player.blockPosition();
-            int light = level.getMaxLocalRawBrightness(pos);
-            if (light >= 12) {
-                sanity = Math.min(MAX_SANITY, sanity + 2); // Restore faster than decay
-            }
+        // A periodic keyframe corrects any client that drifted
+        if (visit % SanitySync.KEYFRAME_VISITS == 0) {
+            data.requestKeyframe();
+        }
+        if (data.isDirty()) {
+            SanitySync.queue(player);
+        }
+    }
 
-            // Clamp sanity values
-            sanity = Mth.clamp(sanity, MIN_SANITY, MAX_SANITY);
-            data.putInt(SANITY_TAG, sanity);
+    /**
+     * How strong the client's static overlay is at a sanity level, 0 to 255: a quadratic curve
+     * that tops out at 80% opacity.
+     */
+    public static int staticIntensity(int sanity) {
+        float missing = 1.0f - sanity / (float) MAX_SANITY;
+        return Math.round(Math.min(missing * missing, 0.8f) * 255);
+    }
 
-            // Apply effects based on sanity level
-            applySanityEffects(player, sanity);
+    @SubscribeEvent
+    public static void onAttachCapabilities(AttachCapabilitiesEvent<Entity> event) {
+        if (event.getObject() instanceof Player) {
+            event.addCapability(PlayerSanity.ID, new PlayerSanity.Provider());
         }
+    }
 
-        // Sync to client if sanity changed or every 5 seconds
-        if (oldSanity != sanity || (player.tickCount % 100 == 0)) {
-            syncSanityToClient((ServerPlayer) player, sanity);
+    @SubscribeEvent
+    public static void onPlayerClone(PlayerEvent.Clone event) {
+        PlayerSanity to = sanity(event.getEntity());
+        if (to == null) return;
+        // Dying resets sanity, as it did when it lived in persistent data; only returning from the End keeps it
+        if (!event.isWasDeath()) {
+            Player original = event.getOriginal();
+            original.reviveCaps();
+            PlayerSanity from = sanity(original);
+            if (from != null) {
+                to.copyFrom(from);
+            }
+            original.invalidateCaps();
+        }
+        if (event.getEntity() instanceof ServerPlayer serverPlayer) {
+            SanityRecords.record(serverPlayer, to.value());
+            syncSanityToClient(serverPlayer, to);
         }
     }
 
     @SubscribeEvent
     public static void onPlayerJoin(PlayerEvent.PlayerLoggedInEvent event) {
         if (event.getEntity() instanceof ServerPlayer serverPlayer) {
-            CompoundTag data = serverPlayer.getPersistentData();
-            int sanity = data.contains(SANITY_TAG) ? data.getInt(SANITY_TAG) : MAX_SANITY;
-            syncSanityToClient(serverPlayer, sanity);
+            PlayerSanity data = sanity(serverPlayer);
+            if (data == null) return;
+            // Sanity used to live in the player's persistent data; carry it over once
+            CompoundTag legacy = serverPlayer.getPersistentData();
+            if (legacy.contains(SANITY_TAG)) {
+                data.set(legacy.getInt(SANITY_TAG));
+                legacy.remove(SANITY_TAG);
+            }
+            data.setStaticIntensity(staticIntensity(data.value()));
+            SanityRecords.record(serverPlayer, data.value());
+            data.requestKeyframe();
+            syncSanityToClient(serverPlayer, data);
         }
     }
 
     @SubscribeEvent
     public static void onPlayerChangeDimension(PlayerEvent.PlayerChangedDimensionEvent event) {
         if (event.getEntity() instanceof ServerPlayer serverPlayer) {
-            CompoundTag data = serverPlayer.getPersistentData();
-            int sanity = data.contains(SANITY_TAG) ? data.getInt(SANITY_TAG) : MAX_SANITY;
-            syncSanityToClient(serverPlayer, sanity);
+            PlayerSanity data = sanity(serverPlayer);
+            if (data != null) {
+                data.requestKeyframe();
+                syncSanityToClient(serverPlayer, data);
+            }
         }
     }
 
-    private static void applySanityEffects(Player player, int sanity) {
+    /**
+     * Moves the player to the effect stage for their sanity and returns it. Effects are only
+     * given when a threshold is crossed and when the ones running are about to wear off, rather
+     * than every second, so a player sitting at low sanity does not get an effect packet for each
+     * effect every update.
+     */
+    private static int applySanityEffects(Player player, PlayerSanity data, int sanity) {
+        int stage = effectStage(sanity);
+        boolean crossed = stage > data.effectStage();
+
         // Low sanity effects
-        if (sanity <= 20) {
-            player.addEffect(new MobEffectInstance(MobEffects.MOVEMENT_SLOWDOWN, 100, 0, false, false));
-            player.addEffect(new MobEffectInstance(MobEffects.WEAKNESS, 100, 0, false, false));
+        if (sanity <= Config.sanityEffectsThreshold) {
+            refreshEffect(player, MobEffects.MOVEMENT_SLOWDOWN, 100, crossed);
+            refreshEffect(player, MobEffects.WEAKNESS, 100, crossed);
         }
 
-        if (sanity <= 10) {
-            player.addEffect(new MobEffectInstance(MobEffects.BLINDNESS, 60, 0, false, false));
+        if (sanity <= Config.sanityBlindnessThreshold) {
+            refreshEffect(player, MobEffects.BLINDNESS, 100, crossed);
         }
 
         // Critical sanity - damage player
-        if (sanity <= 5) {
-            DamageSource damageSource = new DamageSource(
-                player.level().registryAccess().registryOrThrow(Registries.DAMAGE_TYPE).getHolderOrThrow(DamageTypes.MAGIC)
-            );
-            player.hurt(damageSource, 1.0f);
+        if (sanity <= Config.sanityDamageThreshold) {
+            player.hurt(player.damageSources().magic(), 1.0f);
         }
+        return stage;
     }
 
-    private static void syncSanityToClient(ServerPlayer player, int sanity) {
-        ModNetwork.INSTANCE.send(
-            PacketDistributor.PLAYER.with(() -> player),
-            new SanitySyncPacket(sanity)
-        );
+    /**
+     * Which tier of low-sanity effects applies: 0 for none, then 1 to 3 for the effects,
+     * blindness and damage thresholds.
+     */
+    public static int effectStage(int sanity) {
+        if (sanity <= Config.sanityDamageThreshold) return 3;
+        if (sanity <= Config.sanityBlindnessThreshold) return 2;
+        if (sanity <= Config.sanityEffectsThreshold) return 1;
+        return 0;
+    }
+
+    private static void refreshEffect(Player player, MobEffect effect, int duration, boolean force) {
+        MobEffectInstance current = player.getEffect(effect);
+        // Renewed once less than one more update's worth is left, allowing for a late update
+        if (force || current == null || current.getDuration() <= EFFECT_REFRESH_TICKS) {
+            player.addEffect(new MobEffectInstance(effect, duration, 0, false, false));
+        }
+    }
+
+    private static void syncSanityToClient(ServerPlayer player, PlayerSanity data) {
+        SanitySync.queue(player);
+    }
+
+    @Nullable
+    public static PlayerSanity sanity(Player player) {
+        return player.getCapability(PlayerSanity.CAPABILITY).resolve().orElse(null);
     }
 
     public static int getSanity(Player player) {
-        CompoundTag data = player.getPersistentData();
-        return data.contains(SANITY_TAG) ? data.getInt(SANITY_TAG) : MAX_SANITY;
+        PlayerSanity data = sanity(player);
+        return data != null ? data.value() : MAX_SANITY;
     }
 
     public static void setSanity(Player player, int sanity) {
-        sanity = Mth.clamp(sanity, MIN_SANITY, MAX_SANITY);
-        player.getPersistentData().putInt(SANITY_TAG, sanity);
+        PlayerSanity data = sanity(player);
+        if (data == null) return;
+        data.set(sanity);
+        data.setStaticIntensity(staticIntensity(data.value()));
 
         if (player instanceof ServerPlayer serverPlayer) {
-            syncSanityToClient(serverPlayer, sanity);
+            SanityRecords.record(serverPlayer, data.value());
+            syncSanityToClient(serverPlayer, data);
         }
     }
 }
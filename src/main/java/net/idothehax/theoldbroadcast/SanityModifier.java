@@ -0,0 +1,61 @@
+package net.idothehax.theoldbroadcast;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import net.minecraft.util.StringRepresentable;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * One rule for how sanity changes, loaded from {@code data/<namespace>/sanity_modifiers/*.json}.
+ * Once a second the modifier samples its {@code input} for the player, and if the value lies
+ * within {@code min} to {@code max} (inclusive) sanity changes by {@code amount} plus
+ * {@code per_unit} times the value. For example, a modifier with input {@code ghosts}, radius 8
+ * and {@code per_unit} -1 takes one sanity per shadow ghost within 8 blocks.
+ * <p>
+ * {@code radius} is only read by the {@code ghosts} and {@code televisions} inputs, and
+ * {@code item}, an item id or a {@code #}-prefixed item tag, only by {@code held_item}.
+ */
+public record SanityModifier(Input input, int min, int max, int amount, int perUnit, int radius, Optional<String> item) {
+    public static final Codec<SanityModifier> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            Input.CODEC.fieldOf("input").forGetter(SanityModifier::input),
+            Codec.INT.optionalFieldOf("min", 1).forGetter(SanityModifier::min),
+            Codec.INT.optionalFieldOf("max", Integer.MAX_VALUE).forGetter(SanityModifier::max),
+            Codec.INT.optionalFieldOf("amount", 0).forGetter(SanityModifier::amount),
+            Codec.INT.optionalFieldOf("per_unit", 0).forGetter(SanityModifier::perUnit),
+            Codec.intRange(1, 32).optionalFieldOf("radius", 8).forGetter(SanityModifier::radius),
+            Codec.STRING.optionalFieldOf("item").forGetter(SanityModifier::item)
+    ).apply(instance, SanityModifier::new));
+
+    public enum Input implements StringRepresentable {
+        // Always 1, for a steady drift
+        ALWAYS,
+        // 1 in a studio safe zone, from the light index, otherwise 0
+        SAFE_ZONE,
+        // Light level at the player's feet, from the light engine
+        LIGHT,
+        // Shadow ghosts within the radius
+        GHOSTS,
+        // Vintage televisions within the radius
+        TELEVISIONS,
+        // Other players in the same studio room and story, counting only allies when on a team
+        TEAMMATES,
+        // 1 while the item is in either hand, otherwise 0
+        HELD_ITEM;
+
+        public static final Codec<Input> CODEC = StringRepresentable.fromEnum(Input::values);
+
+        @Override
+        public String getSerializedName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * Whether the input depends on the modifier's radius.
+         */
+        public boolean usesRadius() {
+            return this == GHOSTS || this == TELEVISIONS;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package net.idothehax.theoldbroadcast;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.mojang.logging.LogUtils;
+import com.mojang.serialization.JsonOps;
+import net.idothehax.theoldbroadcast.SanityModifier.Input;
+import net.idothehax.theoldbroadcast.entity.ShadowGhostEntity;
+import net.idothehax.theoldbroadcast.world.dimension.StudioColumn;
+import net.idothehax.theoldbroadcast.world.dimension.StudioFloorplan;
+import net.idothehax.theoldbroadcast.world.dimension.StudioSafeZones;
+import net.idothehax.theoldbroadcast.world.structure.StudioIndex;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.packs.resources.ResourceManager;
+import net.minecraft.server.packs.resources.SimpleJsonResourceReloadListener;
+import net.minecraft.tags.TagKey;
+import net.minecraft.util.profiling.ProfilerFiller;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraftforge.event.AddReloadListenerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Loads {@link SanityModifier}s from {@code data/<namespace>/sanity_modifiers} and compiles them
+ * into an {@link Evaluator}: flat arrays of inputs and modifiers, walked in order once a second
+ * per player. Modifiers that read the same input (with the same radius or item) share one
+ * sample, and inputs no modifier reads are never sampled at all.
+ */
+@Mod.EventBusSubscriber(modid = Theoldbroadcast.MODID)
+public class SanityModifiers extends SimpleJsonResourceReloadListener {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final Gson GSON = new GsonBuilder().create();
+    private static final Predicate<BlockState> IS_TELEVISION = state -> state.is(Theoldbroadcast.VINTAGE_TELEVISION.get());
+
+    private static volatile Evaluator evaluator = new Evaluator(List.of(), List.of());
+
+    private SanityModifiers() {
+        super(GSON, "sanity_modifiers");
+    }
+
+    @SubscribeEvent
+    public static void onAddReloadListeners(AddReloadListenerEvent event) {
+        event.addListener(new SanityModifiers());
+    }
+
+    /**
+     * How much the player's sanity changes this second, summed over every modifier that applies.
+     */
+    public static int evaluate(ServerPlayer player) {
+        return evaluator.evaluate(player);
+    }
+
+    @Override
+    protected void apply(Map<ResourceLocation, JsonElement> files, ResourceManager resourceManager, ProfilerFiller profiler) {
+        List<Slot> slots = new ArrayList<>();
+        Map<Slot, Integer> slotIds = new HashMap<>();
+        List<Compiled> modifiers = new ArrayList<>();
+        // Sorted so the same files always compile the same way
+        files.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(file ->
+                SanityModifier.CODEC.parse(JsonOps.INSTANCE, file.getValue())
+                        .resultOrPartial(error -> LOGGER.error("Skipping sanity modifier {}: {}", file.getKey(), error))
+                        .ifPresent(modifier -> {
+                            Slot slot = slot(file.getKey(), modifier);
+                            if (slot == null) return;
+                            int id = slotIds.computeIfAbsent(slot, key -> {
+                                slots.add(key);
+                                return slots.size() - 1;
+                            });
+                            modifiers.add(new Compiled(id, modifier));
+                        }));
+
+        evaluator = new Evaluator(slots, modifiers);
+        LOGGER.info("Loaded {} sanity modifiers sampling {} inputs", modifiers.size(), slots.size());
+    }
+
+    private static Slot slot(ResourceLocation file, SanityModifier modifier) {
+        Input input = modifier.input();
+        int radius = input.usesRadius() ? modifier.radius() : 0;
+        if (input != Input.HELD_ITEM) {
+            return new Slot(input, radius, null, null);
+        }
+
+        String name = modifier.item().orElse("");
+        boolean tag = name.startsWith("#");
+        ResourceLocation id = ResourceLocation.tryParse(tag ? name.substring(1) : name);
+        if (id == null || name.isEmpty()) {
+            LOGGER.error("Skipping sanity modifier {}: held_item needs an item id or tag, got \"{}\"", file, name);
+            return null;
+        }
+        if (tag) {
+            return new Slot(input, 0, null, TagKey.create(Registries.ITEM, id));
+        }
+        Item item = BuiltInRegistries.ITEM.getOptional(id).orElse(null);
+        if (item == null) {
+            LOGGER.error("Skipping sanity modifier {}: unknown item {}", file, id);
+            return null;
+        }
+        return new Slot(input, 0, item, null);
+    }
+
+    private record Slot(Input input, int radius, Item item, TagKey<Item> tag) {
+    }
+
+    private record Compiled(int slot, SanityModifier modifier) {
+    }
+
+    /**
+     * The loaded modifiers in array form. Only ever used from the server thread, which is what
+     * lets it keep one scratch array for the sampled values.
+     */
+    static final class Evaluator {
+        private final Input[] inputs;
+        private final int[] radii;
+        private final Item[] items;
+        private final TagKey<Item>[] tags;
+        private final int[] values;
+
+        private final int[] slots;
+        private final int[] mins;
+        private final int[] maxes;
+        private final int[] amounts;
+        private final int[] perUnit;
+
+        @SuppressWarnings("unchecked")
+        Evaluator(List<Slot> slotList, List<Compiled> modifierList) {
+            int slotCount = slotList.size();
+            inputs = new Input[slotCount];
+            radii = new int[slotCount];
+            items = new Item[slotCount];
+            tags = new TagKey[slotCount];
+            values = new int[slotCount];
+            for (int i = 0; i < slotCount; i++) {
+                Slot slot = slotList.get(i);
+                inputs[i] = slot.input();
+                radii[i] = slot.radius();
+                items[i] = slot.item();
+                tags[i] = slot.tag();
+            }
+
+            int count = modifierList.size();
+            slots = new int[count];
+            mins = new int[count];
+            maxes = new int[count];
+            amounts = new int[count];
+            perUnit = new int[count];
+            for (int i = 0; i < count; i++) {
+                Compiled compiled = modifierList.get(i);
+                slots[i] = compiled.slot();
+                mins[i] = compiled.modifier().min();
+                maxes[i] = compiled.modifier().max();
+                amounts[i] = compiled.modifier().amount();
+                perUnit[i] = compiled.modifier().perUnit();
+            }
+        }
+
+        int evaluate(ServerPlayer player) {
+            for (int i = 0; i < inputs.length; i++) {
+                values[i] = sample(player, i);
+            }
+            int total = 0;
+            for (int i = 0; i < slots.length; i++) {
+                int value = values[slots[i]];
+                if (value >= mins[i] && value <= maxes[i]) {
+                    total += amounts[i] + perUnit[i] * value;
+                }
+            }
+            return total;
+        }
+
+        private int sample(ServerPlayer player, int slot) {
+            ServerLevel level = player.serverLevel();
+            BlockPos pos = player.blockPosition();
+            return switch (inputs[slot]) {
+                case ALWAYS -> 1;
+                case SAFE_ZONE -> StudioSafeZones.isSafe(pos) ? 1 : 0;
+                case LIGHT -> level.getMaxLocalRawBrightness(pos);
+                case GHOSTS -> level.getEntitiesOfClass(ShadowGhostEntity.class, player.getBoundingBox().inflate(radii[slot])).size();
+                case TELEVISIONS -> countTelevisions(level, pos, radii[slot]);
+                case TEAMMATES -> countTeammates(level, player);
+                case HELD_ITEM -> holds(player.getMainHandItem(), slot) || holds(player.getOffhandItem(), slot) ? 1 : 0;
+            };
+        }
+
+        private boolean holds(ItemStack stack, int slot) {
+            return items[slot] != null ? stack.is(items[slot]) : stack.is(tags[slot]);
+        }
+    }
+
+    /**
+     * Counts televisions in the cube of the given radius, only looking inside loaded sections
+     * whose palette has one.
+     */
+    private static int countTelevisions(ServerLevel level, BlockPos center, int radius) {
+        int minX = center.getX() - radius;
+        int maxX = center.getX() + radius;
+        int minY = Math.max(center.getY() - radius, level.getMinBuildHeight());
+        int maxY = Math.min(center.getY() + radius, level.getMaxBuildHeight() - 1);
+        int minZ = center.getZ() - radius;
+        int maxZ = center.getZ() + radius;
+        int count = 0;
+        for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+            for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+                LevelChunk chunk = level.getChunkSource().getChunkNow(chunkX, chunkZ);
+                if (chunk == null) continue;
+                for (int sectionY = minY >> 4; sectionY <= maxY >> 4; sectionY++) {
+                    LevelChunkSection section = chunk.getSection(chunk.getSectionIndexFromSectionY(sectionY));
+                    if (section.hasOnlyAir() || !section.getStates().maybeHas(IS_TELEVISION)) continue;
+                    for (int y = Math.max(minY, sectionY << 4); y <= Math.min(maxY, sectionY << 4 | 15); y++) {
+                        for (int z = Math.max(minZ, chunkZ << 4); z <= Math.min(maxZ, chunkZ << 4 | 15); z++) {
+                            for (int x = Math.max(minX, chunkX << 4); x <= Math.min(maxX, chunkX << 4 | 15); x++) {
+                                if (IS_TELEVISION.test(section.getBlockState(x & 15, y & 15, z & 15))) count++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int countTeammates(ServerLevel level, ServerPlayer player) {
+        StudioFloorplan.Room room = StudioIndex.roomAt(level, player.getBlockX(), player.getBlockZ());
+        if (room == null) return 0;
+        int story = StudioColumn.storyAt(player.getBlockY());
+        int count = 0;
+        for (ServerPlayer other : level.players()) {
+            if (other == player || other.isSpectator() || StudioColumn.storyAt(other.getBlockY()) != story
+                    || !room.contains(other.getBlockX(), other.getBlockZ())) {
+                continue;
+            }
+            // Without a team everyone counts; on one, only allies do
+            if (player.getTeam() == null || player.isAlliedTo(other)) count++;
+        }
+        return count;
+    }
+}
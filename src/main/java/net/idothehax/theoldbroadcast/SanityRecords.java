@@ -0,0 +1,186 @@
+package net.idothehax.theoldbroadcast;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.saveddata.SavedData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The last known sanity of every player who has had any, kept in the overworld's saved data so
+ * it can be queried while they are offline without reading player files. Values are bucketed by
+ * sanity with a Fenwick tree over the bucket sizes, so a player's rank is a logarithmic lookup
+ * and the top or bottom of the board is read straight off the buckets.
+ * <p>
+ * Each player also keeps a short history of past values, one sample per
+ * {@link #HISTORY_INTERVAL} ticks at most, for {@code /sanity history}.
+ */
+public class SanityRecords extends SavedData {
+    private static final String DATA_NAME = Theoldbroadcast.MODID + "_sanity";
+    private static final int HISTORY_SIZE = 32;
+    // One minute between history samples
+    private static final int HISTORY_INTERVAL = 1200;
+    // Sanity takes 7 bits of a history entry, the game time the rest
+    private static final int VALUE_BITS = 7;
+
+    private final Object2IntMap<UUID> values = new Object2IntOpenHashMap<>();
+    private final Map<UUID, long[]> histories = new Object2ObjectOpenHashMap<>();
+    // Players by sanity, in the order they reached it
+    @SuppressWarnings("unchecked")
+    private final ObjectLinkedOpenHashSet<UUID>[] buckets = new ObjectLinkedOpenHashSet[SanityHandler.MAX_SANITY + 1];
+    // Fenwick tree over the bucket sizes, 1-based
+    private final int[] tree = new int[SanityHandler.MAX_SANITY + 2];
+
+    public SanityRecords() {
+        values.defaultReturnValue(-1);
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ObjectLinkedOpenHashSet<>();
+        }
+    }
+
+    public static SanityRecords get(MinecraftServer server) {
+        return server.overworld().getDataStorage().computeIfAbsent(SanityRecords::load, SanityRecords::new, DATA_NAME);
+    }
+
+    /**
+     * Records a player's live sanity. Cheap when nothing changed, which is most calls.
+     */
+    public static void record(ServerPlayer player, int value) {
+        get(player.server).set(player.getUUID(), value, player.server.overworld().getGameTime());
+    }
+
+    private void set(UUID player, int value, long gameTime) {
+        value = Mth.clamp(value, 0, SanityHandler.MAX_SANITY);
+        int previous = values.put(player, value);
+        if (previous == value) return;
+        if (previous >= 0) {
+            buckets[previous].remove(player);
+            add(previous, -1);
+        }
+        buckets[value].add(player);
+        add(value, 1);
+
+        long[] history = histories.computeIfAbsent(player, key -> new long[HISTORY_SIZE]);
+        long last = history[0] >>> VALUE_BITS;
+        if (history[0] == 0 || gameTime - last >= HISTORY_INTERVAL) {
+            System.arraycopy(history, 0, history, 1, HISTORY_SIZE - 1);
+        }
+        history[0] = gameTime << VALUE_BITS | value;
+        setDirty();
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * The player's recorded sanity, or -1 if they have none.
+     */
+    public int value(UUID player) {
+        return values.getInt(player);
+    }
+
+    /**
+     * The player's place counting from the highest sanity, 1 for the top, with ties sharing a
+     * place; -1 if they have no record.
+     */
+    public int rank(UUID player) {
+        int value = values.getInt(player);
+        return value < 0 ? -1 : size() - countAtMost(value) + 1;
+    }
+
+    /**
+     * Up to {@code count} players from the top of the board, or from the bottom if
+     * {@code highest} is false.
+     */
+    public List<Entry> board(int count, boolean highest) {
+        List<Entry> entries = new ArrayList<>(Math.min(count, size()));
+        for (int i = 0; i <= SanityHandler.MAX_SANITY && entries.size() < count; i++) {
+            int value = highest ? SanityHandler.MAX_SANITY - i : i;
+            for (UUID player : buckets[value]) {
+                if (entries.size() >= count) break;
+                entries.add(new Entry(player, value));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * The player's past values, newest first, each as the game time it was recorded at.
+     */
+    public List<Sample> history(UUID player) {
+        List<Sample> samples = new ArrayList<>();
+        long[] history = histories.get(player);
+        if (history == null) return samples;
+        for (long entry : history) {
+            if (entry == 0) break;
+            samples.add(new Sample(entry >>> VALUE_BITS, (int) (entry & (1 << VALUE_BITS) - 1)));
+        }
+        return samples;
+    }
+
+    private void add(int value, int delta) {
+        for (int i = value + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private int countAtMost(int value) {
+        int count = 0;
+        for (int i = value + 1; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    static SanityRecords load(CompoundTag tag) {
+        SanityRecords records = new SanityRecords();
+        for (Tag entry : tag.getList("Players", Tag.TAG_COMPOUND)) {
+            CompoundTag player = (CompoundTag) entry;
+            UUID id = player.getUUID("UUID");
+            int value = Mth.clamp(player.getInt("Value"), 0, SanityHandler.MAX_SANITY);
+            records.values.put(id, value);
+            records.buckets[value].add(id);
+            records.add(value, 1);
+            long[] history = player.getLongArray("History");
+            if (history.length == HISTORY_SIZE) {
+                records.histories.put(id, history);
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public CompoundTag save(CompoundTag tag) {
+        ListTag list = new ListTag();
+        for (Object2IntMap.Entry<UUID> entry : values.object2IntEntrySet()) {
+            CompoundTag player = new CompoundTag();
+            player.putUUID("UUID", entry.getKey());
+            player.putInt("Value", entry.getIntValue());
+            long[] history = histories.get(entry.getKey());
+            if (history != null) {
+                player.putLongArray("History", history);
+            }
+            list.add(player);
+        }
+        tag.put("Players", list);
+        return tag;
+    }
+
+    public record Entry(UUID player, int value) {
+    }
+
+    public record Sample(long gameTime, int value) {
+    }
+}
@@ -0,0 +1,120 @@
+package net.idothehax.theoldbroadcast;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.idothehax.theoldbroadcast.world.dimension.OldBroadcastDimensions;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Runs the sanity update for the players in the Old Broadcast dimension. Each player gets a slot
+ * in a {@link #WINDOW}-tick cycle, handed out to whichever slot has the fewest players, so the
+ * work is spread evenly over the cycle rather than landing on the ticks players happened to join
+ * on. A tick stops after {@link Config#sanityTickBudgetMicros} and leaves the rest of its players
+ * for the next tick. Only the dimension's own tick drives this, so players elsewhere cost nothing.
+ * Slots are kept up to date on login, logout, respawn and dimension change, so a tick only looks at
+ * the players in its own slot.
+ */
+@Mod.EventBusSubscriber(modid = Theoldbroadcast.MODID)
+public class SanityScheduler {
+    public static final int WINDOW = 20;
+
+    private static final Object2IntMap<UUID> SLOTS = new Object2IntOpenHashMap<>();
+    private static final List<List<ServerPlayer>> SLOT_PLAYERS = new ArrayList<>(WINDOW);
+    // Players whose slot has come up but who have not been updated yet
+    private static final Deque<ServerPlayer> DUE = new ArrayDeque<>();
+
+    static {
+        for (int i = 0; i < WINDOW; i++) {
+            SLOT_PLAYERS.add(new ArrayList<>());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onLevelTick(TickEvent.LevelTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || !(event.level instanceof ServerLevel level)
+                || level.dimension() != OldBroadcastDimensions.OLD_BROADCAST_LEVEL) {
+            return;
+        }
+
+        long gameTime = level.getGameTime();
+        for (ServerPlayer player : SLOT_PLAYERS.get((int) (gameTime % WINDOW))) {
+            // A player still waiting from the last cycle keeps their place rather than queueing twice
+            PlayerSanity data = SanityHandler.sanity(player);
+            if (data != null && !data.isQueued()) {
+                data.setQueued(true);
+                DUE.add(player);
+            }
+        }
+
+        long deadline = System.nanoTime() + Config.sanityTickBudgetMicros * 1000L;
+        int visit = (int) (gameTime / WINDOW);
+        while (!DUE.isEmpty() && System.nanoTime() < deadline) {
+            ServerPlayer player = DUE.poll();
+            PlayerSanity data = SanityHandler.sanity(player);
+            if (data == null) continue;
+            data.setQueued(false);
+            if (player.isRemoved() || player.level() != level) continue;
+            SanityHandler.update(player, data, visit);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) track(player);
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) release(player.getUUID());
+    }
+
+    @SubscribeEvent
+    public static void onPlayerChangedDimension(PlayerEvent.PlayerChangedDimensionEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) track(player);
+    }
+
+    // Respawning replaces the player object, and may move them without a dimension change event
+    @SubscribeEvent
+    public static void onPlayerRespawn(PlayerEvent.PlayerRespawnEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) track(player);
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        SLOTS.clear();
+        SLOT_PLAYERS.forEach(List::clear);
+        DUE.clear();
+    }
+
+    // Gives the player the emptiest slot if they are in the dimension, dropping any slot they held
+    private static void track(ServerPlayer player) {
+        release(player.getUUID());
+        if (player.level().dimension() != OldBroadcastDimensions.OLD_BROADCAST_LEVEL) {
+            return;
+        }
+        int slot = 0;
+        for (int i = 1; i < WINDOW; i++) {
+            if (SLOT_PLAYERS.get(i).size() < SLOT_PLAYERS.get(slot).size()) slot = i;
+        }
+        SLOTS.put(player.getUUID(), slot);
+        SLOT_PLAYERS.get(slot).add(player);
+    }
+
+    private static void release(UUID id) {
+        if (SLOTS.containsKey(id)) {
+            SLOT_PLAYERS.get(SLOTS.removeInt(id)).removeIf(player -> player.getUUID().equals(id));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package net.idothehax.theoldbroadcast;
+
+import net.idothehax.theoldbroadcast.network.ModNetwork;
+import net.idothehax.theoldbroadcast.network.SanitySyncPacket;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.network.PacketDistributor;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Sends players their horror state. Anything that changes it queues the player, and at the end of
+ * the tick each queued player gets at most one {@link SanitySyncPacket} holding everything that
+ * changed since the last one. A player is sent at most one packet every {@link #MIN_INTERVAL}
+ * ticks, so a burst of changes arrives as one delta instead of a packet each.
+ */
+@Mod.EventBusSubscriber(modid = Theoldbroadcast.MODID)
+public class SanitySync {
+    private static final int MIN_INTERVAL = 5;
+    // How often players in the dimension get a full keyframe, in sanity update visits (30 seconds)
+    static final int KEYFRAME_VISITS = 30;
+
+    private static final Set<ServerPlayer> QUEUED = new LinkedHashSet<>();
+
+    public static void queue(ServerPlayer player) {
+        QUEUED.add(player);
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || QUEUED.isEmpty()) return;
+        long tick = event.getServer().getTickCount();
+        Iterator<ServerPlayer> iterator = QUEUED.iterator();
+        while (iterator.hasNext()) {
+            ServerPlayer player = iterator.next();
+            PlayerSanity data = player.isRemoved() ? null : SanityHandler.sanity(player);
+            if (data == null || !data.isDirty()) {
+                iterator.remove();
+                continue;
+            }
+            // Rate limited: stays queued, and whatever else changes meanwhile goes in the same packet
+            if (tick - data.lastSentTick() < MIN_INTERVAL) continue;
+            ModNetwork.INSTANCE.send(PacketDistributor.PLAYER.with(() -> player), packet(data));
+            data.markSynced(tick);
+            iterator.remove();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        QUEUED.clear();
+    }
+
+    private static SanitySyncPacket packet(PlayerSanity data) {
+        if (data.syncedValue() < 0) {
+            return SanitySyncPacket.keyframe(data.value(), data.staticIntensity());
+        }
+        int flags = 0;
+        if (data.value() != data.syncedValue()) flags |= SanitySyncPacket.SANITY;
+        if (data.staticIntensity() != data.syncedStatic()) flags |= SanitySyncPacket.STATIC;
+        return new SanitySyncPacket(flags, data.value() - data.syncedValue(), data.staticIntensity());
+    }
+}
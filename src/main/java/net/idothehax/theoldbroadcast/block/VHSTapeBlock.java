@@ -2,6 +2,7 @@ package net.idothehax.theoldbroadcast.block;
 
 import net.idothehax.theoldbroadcast.Theoldbroadcast;
 import net.idothehax.theoldbroadcast.sound.ModSounds;
+import net.idothehax.theoldbroadcast.world.dimension.StudioPlayers;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.util.RandomSource;
@@ -74,9 +75,10 @@ public class VHSTapeBlock extends HorizontalDirectionalBlock {
 
     @Override
     public void animateTick(BlockState state, Level level, BlockPos pos, RandomSource random) {
-        if (level.isClientSide) {
-            Player player = level.getNearestPlayer(pos.getX() + 0.5, pos.getY() + 0.5, pos.getZ() + 0.5, 4.0, false);
-            if (player != null && random.nextInt(40) == 0) {
+        // Rolled first, so the player search only runs for the one tick in 40 that could play a sound
+        if (level.isClientSide && random.nextInt(40) == 0) {
+            Player player = StudioPlayers.nearest(level, pos.getX() + 0.5, pos.getY() + 0.5, pos.getZ() + 0.5, 4.0);
+            if (player != null) {
                 level.playLocalSound(pos.getX() + 0.5, pos.getY() + 0.5, pos.getZ() + 0.5, ModSounds.VHS_STEP.get(), SoundSource.BLOCKS, 0.25f, 0.7f + random.nextFloat() * 0.2f, false);
             }
         }
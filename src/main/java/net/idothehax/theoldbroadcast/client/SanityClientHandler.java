@@ -0,0 +1,42 @@
+package net.idothehax.theoldbroadcast.client;
+
+import net.idothehax.theoldbroadcast.SanityClientEvents;
+import net.idothehax.theoldbroadcast.SanityHandler;
+import net.idothehax.theoldbroadcast.network.SanitySyncPacket;
+
+/**
+ * Rebuilds the local player's horror state from the server's sync packets. Deltas are applied on
+ * top of the last keyframe; any that arrive before the first keyframe are dropped, since there is
+ * nothing yet to apply them to.
+ */
+public class SanityClientHandler {
+    private static boolean hasKeyframe;
+    private static int sanity = SanityHandler.MAX_SANITY;
+    private static int staticIntensity;
+
+    public static void handleSanitySync(SanitySyncPacket packet) {
+        if (packet.has(SanitySyncPacket.KEYFRAME)) {
+            hasKeyframe = true;
+            sanity = packet.getSanity();
+        } else if (!hasKeyframe) {
+            return;
+        } else if (packet.has(SanitySyncPacket.SANITY)) {
+            sanity += packet.getSanity();
+        }
+        if (packet.has(SanitySyncPacket.STATIC)) staticIntensity = packet.getStaticIntensity();
+
+        SanityClientEvents.setClientSanity(sanity);
+        SanityClientEvents.setStaticIntensity(staticIntensity);
+    }
+
+    /**
+     * Forgets the state when leaving a server, so the next one starts from its first keyframe.
+     */
+    public static void reset() {
+        hasKeyframe = false;
+        sanity = SanityHandler.MAX_SANITY;
+        staticIntensity = 0;
+        SanityClientEvents.setClientSanity(sanity);
+        SanityClientEvents.setStaticIntensity(staticIntensity);
+    }
+}
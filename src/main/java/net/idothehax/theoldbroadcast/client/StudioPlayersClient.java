@@ -0,0 +1,23 @@
+package net.idothehax.theoldbroadcast.client;
+
+import net.idothehax.theoldbroadcast.Theoldbroadcast;
+import net.idothehax.theoldbroadcast.world.dimension.StudioPlayers;
+import net.minecraft.client.Minecraft;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * Rebuilds the client's {@link StudioPlayers} grid at the start of every client tick, ahead of
+ * the block animation ticks that query it.
+ */
+@Mod.EventBusSubscriber(modid = Theoldbroadcast.MODID, value = Dist.CLIENT)
+public class StudioPlayersClient {
+    @SubscribeEvent
+    public static void onClientTick(TickEvent.ClientTickEvent event) {
+        if (event.phase == TickEvent.ClientTickEvent.Phase.START) {
+            StudioPlayers.rebuildClient(Minecraft.getInstance().level);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package net.idothehax.theoldbroadcast.client;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.GuiGraphics;
+import net.minecraft.client.gui.screens.Screen;
+import net.minecraft.network.chat.Component;
+import net.minecraft.util.RandomSource;
+
+/**
+ * Full-screen static shown while the server gets a teleport's destination ready.
+ */
+public class TuningInScreen extends Screen {
+    // Size of one static "pixel", in GUI pixels
+    private static final int GRAIN = 4;
+
+    private final RandomSource random = RandomSource.create();
+
+    public TuningInScreen() {
+        super(Component.translatable("screen.theoldbroadcast.tuning_in"));
+    }
+
+    public static void handle(boolean tuning) {
+        Minecraft mc = Minecraft.getInstance();
+        if (tuning) {
+            mc.setScreen(new TuningInScreen());
+        } else if (mc.screen instanceof TuningInScreen) {
+            mc.setScreen(null);
+        }
+    }
+
+    @Override
+    public void render(GuiGraphics graphics, int mouseX, int mouseY, float partialTick) {
+        for (int y = 0; y < height; y += GRAIN) {
+            for (int x = 0; x < width; x += GRAIN) {
+                int shade = random.nextInt(256);
+                graphics.fill(x, y, x + GRAIN, y + GRAIN, 0xFF000000 | shade << 16 | shade << 8 | shade);
+            }
+        }
+        graphics.drawCenteredString(font, title, width / 2, height / 2 - 4, 0xFFFFFF);
+    }
+
+    @Override
+    public boolean shouldCloseOnEsc() {
+        return false;
+    }
+
+    @Override
+    public boolean isPauseScreen() {
+        return false;
+    }
+}
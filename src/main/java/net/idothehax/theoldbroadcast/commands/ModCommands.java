@@ -11,5 +11,6 @@ public class ModCommands {
     @SubscribeEvent
     public static void onRegisterCommands(RegisterCommandsEvent event) {
         SanityCommand.register(event.getDispatcher());
+        OldBroadcastCommand.register(event.getDispatcher());
     }
 }
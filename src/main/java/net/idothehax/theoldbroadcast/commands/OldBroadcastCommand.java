@@ -0,0 +1,145 @@
+package net.idothehax.theoldbroadcast.commands;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
+import net.idothehax.theoldbroadcast.Config;
+import net.idothehax.theoldbroadcast.world.dimension.OldBroadcastDimensions;
+import net.idothehax.theoldbroadcast.world.dimension.OldBroadcastTeleporter;
+import net.idothehax.theoldbroadcast.world.dimension.StudioPregenerator;
+import net.idothehax.theoldbroadcast.world.structure.StudioIndex;
+import net.idothehax.theoldbroadcast.world.structure.StudioStructure.RoomType;
+import net.minecraft.ChatFormatting;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.chat.ClickEvent;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.ComponentUtils;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.Mth;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+public class OldBroadcastCommand {
+    private static final SimpleCommandExceptionType NO_DIMENSION = new SimpleCommandExceptionType(Component.literal("The Old Broadcast dimension is not loaded"));
+
+    public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        LiteralArgumentBuilder<CommandSourceStack> locateRoom = Commands.literal("room");
+        for (RoomType type : RoomType.values()) {
+            locateRoom.then(Commands.literal(type.getSerializedName())
+                .executes(context -> locateRoom(context, type)));
+        }
+
+        dispatcher.register(Commands.literal("oldbroadcast")
+            .requires(source -> source.hasPermission(2))
+            .then(Commands.literal("pregen")
+                .then(Commands.argument("radius", IntegerArgumentType.integer(1, 30000))
+                    .executes(OldBroadcastCommand::startPregen))
+                .then(Commands.literal("stop")
+                    .executes(OldBroadcastCommand::stopPregen))
+                .then(Commands.literal("status")
+                    .executes(OldBroadcastCommand::pregenStatus)))
+            .then(Commands.literal("locate")
+                .then(locateRoom)
+                .then(Commands.literal("tapes")
+                    .executes(context -> locateTapes(context, 64))
+                    .then(Commands.argument("radius", IntegerArgumentType.integer(1, 1024))
+                        .executes(context -> locateTapes(context, IntegerArgumentType.getInteger(context, "radius")))))));
+    }
+
+    private static ServerLevel studio(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
+        ServerLevel level = context.getSource().getServer().getLevel(OldBroadcastDimensions.OLD_BROADCAST_LEVEL);
+        if (level == null) {
+            throw NO_DIMENSION.create();
+        }
+        return level;
+    }
+
+    private static int startPregen(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
+        // Radius is in blocks, rounded up to whole chunks
+        int radius = (IntegerArgumentType.getInteger(context, "radius") + 15) >> 4;
+        if (!StudioPregenerator.start(studio(context), radius)) {
+            context.getSource().sendFailure(Component.literal("Pre-generation needs studioStorage set to FULL; with " + Config.studioStorage + " the generated chunks are not saved"));
+            return 0;
+        }
+        long total = (2L * radius + 1) * (2L * radius + 1);
+
+        context.getSource().sendSuccess(() -> Component.literal("Pre-generating " + total + " chunks around the studio entrance"), true);
+
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    private static int stopPregen(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
+        if (!StudioPregenerator.stop(studio(context))) {
+            context.getSource().sendFailure(Component.literal("No pre-generation is running"));
+            return 0;
+        }
+
+        context.getSource().sendSuccess(() -> Component.literal("Stopped pre-generation"), true);
+
+        return 1;
+    }
+
+    // The caller's position when they are in the studio, otherwise the entrance
+    private static BlockPos origin(CommandSourceStack source, ServerLevel level) {
+        return BlockPos.containing(source.getLevel() == level ? source.getPosition() : OldBroadcastTeleporter.ENTRANCE);
+    }
+
+    private static int locateRoom(CommandContext<CommandSourceStack> context, RoomType type) throws CommandSyntaxException {
+        ServerLevel level = studio(context);
+        BlockPos origin = origin(context.getSource(), level);
+        Optional<StudioIndex.RoomMatch> match = StudioIndex.nearestRoom(level, type, origin);
+        if (match.isEmpty()) {
+            context.getSource().sendFailure(Component.literal("No " + type.getSerializedName() + " found nearby"));
+            return 0;
+        }
+
+        BlockPos center = match.get().center();
+        int distance = Mth.floor(Math.sqrt(center.distSqr(origin)));
+        context.getSource().sendSuccess(() -> Component.literal("The nearest " + type.getSerializedName() + " is at ")
+            .append(coordinates(center))
+            .append(" on story " + (match.get().story() + 1) + " (" + distance + " blocks away)"), false);
+
+        return distance;
+    }
+
+    private static int locateTapes(CommandContext<CommandSourceStack> context, int radius) throws CommandSyntaxException {
+        ServerLevel level = studio(context);
+        BlockPos origin = origin(context.getSource(), level);
+        List<BlockPos> tapes = StudioIndex.tapesWithin(level, origin, radius);
+        if (tapes.isEmpty()) {
+            context.getSource().sendFailure(Component.literal("No VHS tapes within " + radius + " blocks"));
+            return 0;
+        }
+
+        tapes.sort(Comparator.comparingDouble(pos -> pos.distSqr(origin)));
+        context.getSource().sendSuccess(() -> Component.literal(tapes.size() + " VHS tapes within " + radius + " blocks:"), false);
+        for (BlockPos pos : tapes.subList(0, Math.min(tapes.size(), 10))) {
+            context.getSource().sendSuccess(() -> Component.literal(" - ").append(coordinates(pos)), false);
+        }
+
+        return tapes.size();
+    }
+
+    private static Component coordinates(BlockPos pos) {
+        return ComponentUtils.wrapInSquareBrackets(Component.literal(pos.getX() + ", " + pos.getY() + ", " + pos.getZ()))
+            .withStyle(style -> style.withColor(ChatFormatting.GREEN)
+                .withClickEvent(new ClickEvent(ClickEvent.Action.SUGGEST_COMMAND, "/execute in " + OldBroadcastDimensions.OLD_BROADCAST_LEVEL.location() + " run tp @s " + pos.getX() + " " + pos.getY() + " " + pos.getZ())));
+    }
+
+    private static int pregenStatus(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
+        StudioPregenerator.Status status = StudioPregenerator.status(studio(context));
+        String state = !status.running() ? "Not running" : status.paused() ? "Paused while the server catches up" : "Running";
+        int percent = status.total() == 0 ? 0 : (int) (status.done() * 100 / status.total());
+
+        context.getSource().sendSuccess(() -> Component.literal(state + ": " + status.done() + "/" + status.total() + " chunks (" + percent + "%), " + status.failed() + " failed, " + status.inFlight() + " in flight"), false);
+
+        return percent;
+    }
+}
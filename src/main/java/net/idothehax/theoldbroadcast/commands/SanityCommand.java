@@ -1,20 +1,29 @@
 package net.idothehax.theoldbroadcast.commands;
 
+import com.mojang.authlib.GameProfile;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import net.idothehax.theoldbroadcast.SanityHandler;
+import net.idothehax.theoldbroadcast.SanityRecords;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
 import net.minecraft.commands.arguments.EntityArgument;
+import net.minecraft.commands.arguments.GameProfileArgument;
 import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.players.GameProfileCache;
 import net.minecraft.util.Mth;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
 
 public class SanityCommand {
+    private static final int DEFAULT_BOARD_SIZE = 10;
+    private static final int MAX_BOARD_SIZE = 100;
 
     public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
         dispatcher.register(Commands.literal("sanity")
@@ -32,7 +41,18 @@ public class SanityCommand {
                     .executes(SanityCommand::getSanity)))
             .then(Commands.literal("reset")
                 .then(Commands.argument("targets", EntityArgument.players())
-                    .executes(SanityCommand::resetSanity))));
+                    .executes(SanityCommand::resetSanity)))
+            .then(Commands.literal("top")
+                .executes(context -> showBoard(context, DEFAULT_BOARD_SIZE, true))
+                .then(Commands.argument("count", IntegerArgumentType.integer(1, MAX_BOARD_SIZE))
+                    .executes(context -> showBoard(context, IntegerArgumentType.getInteger(context, "count"), true))))
+            .then(Commands.literal("bottom")
+                .executes(context -> showBoard(context, DEFAULT_BOARD_SIZE, false))
+                .then(Commands.argument("count", IntegerArgumentType.integer(1, MAX_BOARD_SIZE))
+                    .executes(context -> showBoard(context, IntegerArgumentType.getInteger(context, "count"), false))))
+            .then(Commands.literal("history")
+                .then(Commands.argument("target", GameProfileArgument.gameProfile())
+                    .executes(SanityCommand::showHistory))));
     }
 
     private static int setSanity(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
@@ -40,7 +60,7 @@ public class SanityCommand {
         int value = IntegerArgumentType.getInteger(context, "value");
 
         for (ServerPlayer player : targets) {
-            player.getPersistentData().putInt(SanityHandler.SANITY_TAG, value);
+            SanityHandler.setSanity(player, value);
         }
 
         if (targets.size() == 1) {
@@ -57,9 +77,9 @@ public class SanityCommand {
         int value = IntegerArgumentType.getInteger(context, "value");
 
         for (ServerPlayer player : targets) {
-            int currentSanity = player.getPersistentData().getInt(SanityHandler.SANITY_TAG);
+            int currentSanity = SanityHandler.getSanity(player);
             int newSanity = Mth.clamp(currentSanity + value, 0, SanityHandler.MAX_SANITY);
-            player.getPersistentData().putInt(SanityHandler.SANITY_TAG, newSanity);
+            SanityHandler.setSanity(player, newSanity);
         }
 
         String operation = value >= 0 ? "Added " + value : "Removed " + Math.abs(value);
@@ -74,7 +94,7 @@ public class SanityCommand {
 
     private static int getSanity(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
         ServerPlayer target = EntityArgument.getPlayer(context, "target");
-        int sanity = target.getPersistentData().getInt(SanityHandler.SANITY_TAG);
+        int sanity = SanityHandler.getSanity(target);
 
         context.getSource().sendSuccess(() -> Component.literal(target.getName().getString() + " has " + sanity + "/" + SanityHandler.MAX_SANITY + " sanity"), false);
 
@@ -85,7 +105,7 @@ public class SanityCommand {
         Collection<ServerPlayer> targets = EntityArgument.getPlayers(context, "targets");
 
         for (ServerPlayer player : targets) {
-            player.getPersistentData().putInt(SanityHandler.SANITY_TAG, SanityHandler.MAX_SANITY);
+            SanityHandler.setSanity(player, SanityHandler.MAX_SANITY);
         }
 
         if (targets.size() == 1) {
@@ -96,4 +116,50 @@ public class SanityCommand {
 
         return targets.size();
     }
+
+    private static int showBoard(CommandContext<CommandSourceStack> context, int count, boolean highest) {
+        MinecraftServer server = context.getSource().getServer();
+        SanityRecords records = SanityRecords.get(server);
+        List<SanityRecords.Entry> board = records.board(count, highest);
+        if (board.isEmpty()) {
+            context.getSource().sendFailure(Component.literal("No player has a sanity record yet"));
+            return 0;
+        }
+
+        context.getSource().sendSuccess(() -> Component.literal((highest ? "Highest" : "Lowest") + " sanity of " + records.size() + " players:"), false);
+        for (SanityRecords.Entry entry : board) {
+            int rank = records.rank(entry.player());
+            context.getSource().sendSuccess(() -> Component.literal("#" + rank + " " + name(server, entry.player()) + ": " + entry.value() + "/" + SanityHandler.MAX_SANITY), false);
+        }
+        return board.size();
+    }
+
+    private static int showHistory(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
+        MinecraftServer server = context.getSource().getServer();
+        SanityRecords records = SanityRecords.get(server);
+        long now = server.overworld().getGameTime();
+        int shown = 0;
+
+        for (GameProfile profile : GameProfileArgument.getGameProfiles(context, "target")) {
+            int value = records.value(profile.getId());
+            if (value < 0) {
+                context.getSource().sendFailure(Component.literal(profile.getName() + " has no sanity record"));
+                continue;
+            }
+            int rank = records.rank(profile.getId());
+            context.getSource().sendSuccess(() -> Component.literal(profile.getName() + " has " + value + "/" + SanityHandler.MAX_SANITY + " sanity, #" + rank + " of " + records.size()), false);
+            for (SanityRecords.Sample sample : records.history(profile.getId())) {
+                long minutes = (now - sample.gameTime()) / 1200;
+                context.getSource().sendSuccess(() -> Component.literal("  " + (minutes == 0 ? "just now" : minutes + " min ago") + ": " + sample.value()), false);
+            }
+            shown++;
+        }
+        return shown;
+    }
+
+    // From the profile cache, so offline players are named without reading their player files
+    private static String name(MinecraftServer server, UUID player) {
+        GameProfileCache cache = server.getProfileCache();
+        return cache == null ? player.toString() : cache.get(player).map(GameProfile::getName).orElse(player.toString());
+    }
 }
@@ -1,6 +1,7 @@
 package net.idothehax.theoldbroadcast.entity;
 
 import net.idothehax.theoldbroadcast.world.dimension.OldBroadcastDimensions;
+import net.idothehax.theoldbroadcast.world.dimension.StudioPlayers;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.entity.MobSpawnType;
@@ -21,7 +22,7 @@ public class GhostSpawnHandler {
     public static void onLevelTick(TickEvent.LevelTickEvent event) {
         if (event.level.isClientSide() || event.level.dimension() != OldBroadcastDimensions.OLD_BROADCAST_LEVEL) return;
         Level level = event.level;
-        for (Player player : level.players()) {
+        for (Player player : StudioPlayers.players(level)) {
             if (RANDOM.nextInt(600) == 0) { // ~Every 30 seconds per player
                 int x = (int) (player.getX() + RANDOM.nextInt(32) - 16);
                 int y = (int) player.getY();
@@ -2,6 +2,7 @@ package net.idothehax.theoldbroadcast.entity;
 
 import net.idothehax.theoldbroadcast.Theoldbroadcast;
 import net.idothehax.theoldbroadcast.sound.ModSounds;
+import net.idothehax.theoldbroadcast.world.dimension.StudioPlayers;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.syncher.EntityDataAccessor;
@@ -47,7 +48,7 @@ public class ShadowGhostEntity extends Monster {
     public void tick() {
         super.tick();
         if (!level().isClientSide) {
-            Player nearest = level().getNearestPlayer(this, 16);
+            Player nearest = StudioPlayers.nearest(level(), this.getX(), this.getY(), this.getZ(), 16);
             if (nearest != null) {
                 double dist = this.distanceToSqr(nearest);
                 if (dist < 16) {
@@ -0,0 +1,28 @@
+package net.idothehax.theoldbroadcast.mixin;
+
+import net.idothehax.theoldbroadcast.world.dimension.StudioDirtyChunks;
+import net.minecraft.server.level.ChunkMap;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(ChunkMap.class)
+public abstract class ChunkMapMixin {
+    @Shadow
+    @Final
+    ServerLevel level;
+
+    // Studio chunks that are regenerated or kept as deltas skip the normal save
+    @Inject(method = "save(Lnet/minecraft/world/level/chunk/ChunkAccess;)Z", at = @At("HEAD"), cancellable = true)
+    private void theoldbroadcast$skipUnchangedStudioChunks(ChunkAccess chunk, CallbackInfoReturnable<Boolean> cir) {
+        if (!StudioDirtyChunks.shouldSave(level, chunk)) {
+            chunk.setUnsaved(false);
+            cir.setReturnValue(false);
+        }
+    }
+}
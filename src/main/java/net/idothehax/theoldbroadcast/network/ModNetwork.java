@@ -5,7 +5,7 @@ import net.minecraftforge.network.NetworkRegistry;
 import net.minecraftforge.network.simple.SimpleChannel;
 
 public class ModNetwork {
-    private static final String PROTOCOL_VERSION = "1.0";
+    private static final String PROTOCOL_VERSION = "3";
     public static final SimpleChannel INSTANCE = NetworkRegistry.newSimpleChannel(
             new ResourceLocation("theoldbroadcast", "main"),
             () -> PROTOCOL_VERSION,
@@ -19,5 +19,9 @@ public class ModNetwork {
             SanitySyncPacket::encode,
             SanitySyncPacket::decode,
             SanitySyncPacket::handle);
+        INSTANCE.registerMessage(id++, TuningInPacket.class,
+            TuningInPacket::encode,
+            TuningInPacket::decode,
+            TuningInPacket::handle);
     }
 }
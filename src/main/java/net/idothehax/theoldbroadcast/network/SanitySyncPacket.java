@@ -8,19 +8,48 @@ import net.minecraftforge.network.NetworkEvent;
 
 import java.util.function.Supplier;
 
+/**
+ * A player's horror state: sanity and the static overlay's intensity. A keyframe carries every
+ * field in full. Otherwise only the fields that changed since the last packet are present, sanity
+ * as a zigzag VarInt delta and the intensity as a plain VarInt, so a typical update is two bytes.
+ */
 public class SanitySyncPacket {
+    public static final int KEYFRAME = 1;
+    public static final int SANITY = 1 << 1;
+    public static final int STATIC = 1 << 2;
+
+    private final int flags;
+    // Absolute in a keyframe, otherwise the change since the last packet
     private final int sanity;
+    private final int staticIntensity;
 
-    public SanitySyncPacket(int sanity) {
+    public SanitySyncPacket(int flags, int sanity, int staticIntensity) {
+        this.flags = flags;
         this.sanity = sanity;
+        this.staticIntensity = staticIntensity;
+    }
+
+    public static SanitySyncPacket keyframe(int sanity, int staticIntensity) {
+        return new SanitySyncPacket(KEYFRAME | SANITY | STATIC, sanity, staticIntensity);
     }
 
     public static void encode(SanitySyncPacket packet, FriendlyByteBuf buffer) {
-        buffer.writeInt(packet.sanity);
+        buffer.writeByte(packet.flags);
+        if ((packet.flags & SANITY) != 0) {
+            buffer.writeVarInt((packet.flags & KEYFRAME) != 0 ? packet.sanity : packet.sanity << 1 ^ packet.sanity >> 31);
+        }
+        if ((packet.flags & STATIC) != 0) buffer.writeVarInt(packet.staticIntensity);
     }
 
     public static SanitySyncPacket decode(FriendlyByteBuf buffer) {
-        return new SanitySyncPacket(buffer.readInt());
+        int flags = buffer.readUnsignedByte();
+        int sanity = 0;
+        if ((flags & SANITY) != 0) {
+            int raw = buffer.readVarInt();
+            sanity = (flags & KEYFRAME) != 0 ? raw : raw >>> 1 ^ -(raw & 1);
+        }
+        int staticIntensity = (flags & STATIC) != 0 ? buffer.readVarInt() : 0;
+        return new SanitySyncPacket(flags, sanity, staticIntensity);
     }
 
     public static void handle(SanitySyncPacket packet, Supplier<NetworkEvent.Context> contextSupplier) {
@@ -28,13 +57,21 @@ public class SanitySyncPacket {
         context.enqueueWork(() -> {
             // This code runs on the client side
             DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> {
-                SanityClientHandler.handleSanitySync(packet.sanity);
+                SanityClientHandler.handleSanitySync(packet);
             });
         });
         context.setPacketHandled(true);
     }
 
+    public boolean has(int flag) {
+        return (flags & flag) != 0;
+    }
+
     public int getSanity() {
         return sanity;
     }
+
+    public int getStaticIntensity() {
+        return staticIntensity;
+    }
 }
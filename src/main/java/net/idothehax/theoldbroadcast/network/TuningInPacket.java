@@ -0,0 +1,35 @@
+package net.idothehax.theoldbroadcast.network;
+
+import net.idothehax.theoldbroadcast.client.TuningInScreen;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.network.NetworkEvent;
+
+import java.util.function.Supplier;
+
+/**
+ * Tells a client its teleport has been queued, or that it was called off. The static screen it
+ * opens gives way by itself to the level loading screen when the teleport goes through.
+ */
+public class TuningInPacket {
+    private final boolean tuning;
+
+    public TuningInPacket(boolean tuning) {
+        this.tuning = tuning;
+    }
+
+    public static void encode(TuningInPacket packet, FriendlyByteBuf buffer) {
+        buffer.writeBoolean(packet.tuning);
+    }
+
+    public static TuningInPacket decode(FriendlyByteBuf buffer) {
+        return new TuningInPacket(buffer.readBoolean());
+    }
+
+    public static void handle(TuningInPacket packet, Supplier<NetworkEvent.Context> contextSupplier) {
+        NetworkEvent.Context context = contextSupplier.get();
+        context.enqueueWork(() -> DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> TuningInScreen.handle(packet.tuning)));
+        context.setPacketHandled(true);
+    }
+}
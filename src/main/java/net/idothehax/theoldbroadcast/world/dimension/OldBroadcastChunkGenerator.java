@@ -1,9 +1,13 @@
 package net.idothehax.theoldbroadcast.world.dimension;
 
 import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import net.idothehax.theoldbroadcast.Theoldbroadcast;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Holder;
+import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.WorldGenRegion;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.LevelHeightAccessor;
 import net.minecraft.world.level.NoiseColumn;
 import net.minecraft.world.level.StructureManager;
@@ -24,15 +28,50 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 
 public class OldBroadcastChunkGenerator extends ChunkGenerator {
-    public static final Codec<OldBroadcastChunkGenerator> CODEC = BiomeSource.CODEC.fieldOf("biome_source")
-            .xmap(OldBroadcastChunkGenerator::new, ChunkGenerator::getBiomeSource).codec();
+    public static final Codec<OldBroadcastChunkGenerator> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            BiomeSource.CODEC.fieldOf("biome_source").forGetter(ChunkGenerator::getBiomeSource),
+            StudioFloorplans.Planner.CODEC.optionalFieldOf("layout", StudioFloorplans.Planner.FLOORPLAN).forGetter(generator -> generator.planner),
+            Codec.intRange(1, 11).optionalFieldOf("floors", DEFAULT_FLOORS).forGetter(generator -> generator.floors)
+    ).apply(instance, OldBroadcastChunkGenerator::new));
+
+    public static final int DEFAULT_FLOORS = 4;
+    private static final ResourceLocation FLOORPLAN_RANDOM = ResourceLocation.fromNamespaceAndPath(Theoldbroadcast.MODID, "floorplan");
 
-    private static final BlockState CONCRETE = Blocks.GRAY_CONCRETE.defaultBlockState();
-    private static final BlockState WOOL = Blocks.BLACK_WOOL.defaultBlockState();
     private static final BlockState GLASS = Blocks.BLACK_STAINED_GLASS.defaultBlockState();
 
-    public OldBroadcastChunkGenerator(BiomeSource biomeSource) {
+    private final StudioFloorplans.Planner planner;
+    private final int floors;
+    private volatile BaseColumns baseColumns;
+    private volatile Floorplans floorplans;
+
+    public OldBroadcastChunkGenerator(BiomeSource biomeSource, StudioFloorplans.Planner planner, int floors) {
         super(biomeSource);
+        this.planner = planner;
+        this.floors = floors;
+    }
+
+    public OldBroadcastChunkGenerator(BiomeSource biomeSource) {
+        this(biomeSource, StudioFloorplans.Planner.FLOORPLAN, DEFAULT_FLOORS);
+    }
+
+    /**
+     * Number of stories the studio is stacked to, before clamping to the level's build height.
+     */
+    public int floors() {
+        return floors;
+    }
+
+    /**
+     * The floorplan cache for the world the given random state belongs to. Chunk filling, room
+     * pieces and anything else that needs the layout should go through this.
+     */
+    public StudioFloorplans floorplans(RandomState randomState) {
+        Floorplans current = this.floorplans;
+        if (current == null || current.randomState() != randomState) {
+            current = new Floorplans(randomState, new StudioFloorplans(planner, floors, randomState.getOrCreateRandomFactory(FLOORPLAN_RANDOM)));
+            this.floorplans = current;
+        }
+        return current.plans();
     }
 
     @Override
@@ -57,69 +96,23 @@ public class OldBroadcastChunkGenerator extends ChunkGenerator {
 
     @Override
     public int getGenDepth() {
-        return 384;
+        // Matches the dimension type's height
+        return 256;
     }
 
     @Override
     public CompletableFuture<ChunkAccess> fillFromNoise(Executor executor, Blender blender, RandomState randomState, StructureManager structureManager, ChunkAccess chunk) {
         return CompletableFuture.supplyAsync(() -> {
-            generateStudioStructure(chunk);
+            generateStudioStructure(chunk, randomState);
             return chunk;
         }, executor);
     }
 
-    private void generateStudioStructure(ChunkAccess chunk) {
-        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
-
-        // Generate floor
-        for (int x = 0; x < 16; x++) {
-            for (int z = 0; z < 16; z++) {
-                pos.set(x, 64, z);
-                chunk.setBlockState(pos, CONCRETE, false);
-
-                // Generate walls based on room layout
-                if (shouldGenerateWall(chunk.getPos().x * 16 + x, chunk.getPos().z * 16 + z)) {
-                    for (int y = 65; y < 80; y++) {
-                        pos.set(x, y, z);
-                        chunk.setBlockState(pos, WOOL, false);
-                    }
-                    // Ceiling
-                    pos.set(x, 80, z);
-                    chunk.setBlockState(pos, CONCRETE, false);
-                }
-
-                // Generate lighting fixtures
-                if ((x + z) % 8 == 0 && !shouldGenerateWall(chunk.getPos().x * 16 + x, chunk.getPos().z * 16 + z)) {
-                    pos.set(x, 79, z);
-                    chunk.setBlockState(pos, Blocks.REDSTONE_LAMP.defaultBlockState(), false);
-                }
-            }
-        }
-    }
-
-    private boolean shouldGenerateWall(int worldX, int worldZ) {
-        // Create maze-like structure with connected rooms
-        int roomSize = 32;
-        int localX = Math.floorMod(worldX, roomSize);
-        int localZ = Math.floorMod(worldZ, roomSize);
-
-        // Room boundaries
-        if (localX == 0 || localX == roomSize - 1 || localZ == 0 || localZ == roomSize - 1) {
-            // Create doorways
-            if ((localX == 0 && localZ >= 14 && localZ <= 18) ||
-                (localX == roomSize - 1 && localZ >= 14 && localZ <= 18) ||
-                (localZ == 0 && localX >= 14 && localX <= 18) ||
-                (localZ == roomSize - 1 && localX >= 14 && localX <= 18)) {
-                return false; // Doorway
-            }
-            return true; // Wall
-        }
-
-        // Interior walls for maze effect
-        if (localX % 8 == 0 && localZ % 4 != 0) return true;
-        if (localZ % 8 == 0 && localX % 4 != 0) return true;
-
-        return false;
+    private void generateStudioStructure(ChunkAccess chunk, RandomState randomState) {
+        ChunkPos chunkPos = chunk.getPos();
+        StudioFloorplan plan = floorplans(randomState).forChunk(chunkPos.x, chunkPos.z);
+        int written = StudioChunkWriter.write(chunk, plan.slice(chunkPos.x, chunkPos.z).columns(), floors);
+        StudioChunkWriter.writeStairs(chunk, plan.stairs(), written);
     }
 
     @Override
@@ -134,28 +127,63 @@ public class OldBroadcastChunkGenerator extends ChunkGenerator {
 
     @Override
     public int getBaseHeight(int x, int z, Heightmap.Types heightmapType, LevelHeightAccessor level, RandomState randomState) {
-        return 80;
+        // Answered from the layout alone, so placement queries never need the chunk
+        int height = floorplans(randomState).columnAt(x, z).height(heightmapType, Math.min(floors, StudioColumn.maxFloors(level.getMaxBuildHeight())));
+        return Math.max(height, level.getMinBuildHeight());
     }
 
     @Override
     public NoiseColumn getBaseColumn(int x, int z, LevelHeightAccessor level, RandomState randomState) {
-        BlockState[] states = new BlockState[level.getHeight()];
-        for (int i = 0; i < 64; i++) {
-            states[i] = Blocks.STONE.defaultBlockState();
-        }
-        states[64] = CONCRETE;
-        for (int i = 65; i < 80; i++) {
-            states[i] = Blocks.AIR.defaultBlockState();
-        }
-        states[80] = CONCRETE;
-        for (int i = 81; i < states.length; i++) {
-            states[i] = Blocks.AIR.defaultBlockState();
+        return baseColumns(level).get(floorplans(randomState).columnAt(x, z));
+    }
+
+    private BaseColumns baseColumns(LevelHeightAccessor level) {
+        BaseColumns columns = this.baseColumns;
+        if (columns == null || !columns.matches(level)) {
+            columns = new BaseColumns(level.getMinBuildHeight(), level.getHeight(), Math.min(floors, StudioColumn.maxFloors(level.getMaxBuildHeight())));
+            this.baseColumns = columns;
         }
-        return new NoiseColumn(level.getMinBuildHeight(), states);
+        return columns;
     }
 
     @Override
     public void addDebugScreenInfo(List<String> info, RandomState randomState, BlockPos pos) {
         info.add("Old Broadcast Studio Dimension");
     }
+
+    private record Floorplans(RandomState randomState, StudioFloorplans plans) {
+    }
+
+    /**
+     * One prebuilt column per {@link StudioColumn} shape for a given build height. The columns are
+     * shared between callers, which only ever read them.
+     */
+    private static final class BaseColumns {
+        private final int minY;
+        private final int height;
+        private final NoiseColumn[] columns;
+
+        BaseColumns(int minY, int height, int floors) {
+            this.minY = minY;
+            this.height = height;
+            StudioColumn[] shapes = StudioColumn.values();
+            this.columns = new NoiseColumn[shapes.length];
+            for (StudioColumn shape : shapes) {
+                BlockState[] states = new BlockState[height];
+                for (int i = 0; i < height; i++) {
+                    BlockState state = shape.stateAt(minY + i, floors);
+                    states[i] = state != null ? state : Blocks.AIR.defaultBlockState();
+                }
+                columns[shape.ordinal()] = new NoiseColumn(minY, states);
+            }
+        }
+
+        boolean matches(LevelHeightAccessor level) {
+            return level.getMinBuildHeight() == minY && level.getHeight() == height;
+        }
+
+        NoiseColumn get(StudioColumn shape) {
+            return columns[shape.ordinal()];
+        }
+    }
 }
@@ -1,40 +1,135 @@
 package net.idothehax.theoldbroadcast.world.dimension;
 
+import com.mojang.datafixers.util.Either;
+import net.idothehax.theoldbroadcast.Theoldbroadcast;
+import net.idothehax.theoldbroadcast.network.ModNetwork;
+import net.idothehax.theoldbroadcast.network.TuningInPacket;
+import net.idothehax.theoldbroadcast.world.structure.StudioSpawns;
 import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ChunkHolder;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.level.TicketType;
 import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.ChunkStatus;
 import net.minecraft.world.level.portal.PortalInfo;
 import net.minecraft.world.phys.Vec3;
 import net.minecraftforge.common.util.ITeleporter;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.network.PacketDistributor;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
+/**
+ * Moves players in and out of the studio. Teleports are queued rather than done on the spot: a
+ * ticket around the destination gets its chunks generated on the worldgen threads, and the
+ * dimension change happens on a later tick once they are ready, so arriving never has to load
+ * or generate them on the main thread. Meanwhile the player sees a "tuning in" static screen.
+ */
+@Mod.EventBusSubscriber(modid = Theoldbroadcast.MODID)
 public class OldBroadcastTeleporter implements ITeleporter {
+    // Where players arrive in the studio
+    public static final Vec3 ENTRANCE = new Vec3(8, 66, 8);
+
+    // Outlives any sensible wait, and lets the player's own ticket take over after arrival
+    private static final int TICKET_LIFETIME = 300;
+    private static final TicketType<ChunkPos> TICKET = TicketType.create(Theoldbroadcast.MODID + ":teleport", Comparator.comparingLong(ChunkPos::toLong), TICKET_LIFETIME);
+    // Ticket distance 1 brings the 3x3 chunks around the destination to full status
+    private static final int TICKET_DISTANCE = 1;
+    // Teleport anyway if the destination is still not ready after this many ticks
+    private static final int MAX_WAIT_TICKS = 200;
+
+    private static final Map<UUID, Pending> PENDING = new HashMap<>();
+
+    private final Vec3 arrival;
+
+    private OldBroadcastTeleporter(Vec3 arrival) {
+        this.arrival = arrival;
+    }
 
     public static void teleportToOldBroadcast(ServerLevel level, ServerPlayer player) {
         ServerLevel targetLevel = level.getServer().getLevel(OldBroadcastDimensions.OLD_BROADCAST_LEVEL);
         if (targetLevel != null) {
-            player.changeDimension(targetLevel, new OldBroadcastTeleporter());
+            queue(player, targetLevel);
         }
     }
 
     public static void teleportFromOldBroadcast(ServerLevel level, ServerPlayer player) {
-        ServerLevel overworld = level.getServer().overworld();
-        player.changeDimension(overworld, new OldBroadcastTeleporter());
+        queue(player, level.getServer().overworld());
     }
 
-    @Override
-    public PortalInfo getPortalInfo(Entity entity, ServerLevel destWorld, Function<ServerLevel, PortalInfo> defaultPortalInfo) {
+    private static void queue(ServerPlayer player, ServerLevel destination) {
+        if (PENDING.containsKey(player.getUUID())) return;
+        Vec3 arrival = destination(destination);
+        ChunkPos pos = new ChunkPos(BlockPos.containing(arrival));
+        destination.getChunkSource().addRegionTicket(TICKET, pos, TICKET_DISTANCE, pos);
+        CompletableFuture<Either<ChunkAccess, ChunkHolder.ChunkLoadingFailure>> future = destination.getChunkSource().getChunkFuture(pos.x, pos.z, ChunkStatus.FULL, true);
+        PENDING.put(player.getUUID(), new Pending(destination.dimension(), arrival, future, destination.getServer().getTickCount()));
+        ModNetwork.INSTANCE.send(PacketDistributor.PLAYER.with(() -> player), new TuningInPacket(true));
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || PENDING.isEmpty()) return;
+        MinecraftServer server = event.getServer();
+        // Taken out of the queue before any teleport runs, since a dimension change can queue another
+        List<Map.Entry<UUID, Pending>> ready = new ArrayList<>();
+        Iterator<Map.Entry<UUID, Pending>> iterator = PENDING.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, Pending> entry = iterator.next();
+            Pending pending = entry.getValue();
+            if (pending.future().isDone() || server.getTickCount() - pending.queuedTick() >= MAX_WAIT_TICKS) {
+                ready.add(entry);
+                iterator.remove();
+            }
+        }
+
+        for (Map.Entry<UUID, Pending> entry : ready) {
+            ServerPlayer player = server.getPlayerList().getPlayer(entry.getKey());
+            ServerLevel destination = server.getLevel(entry.getValue().destination());
+            if (player == null) continue;
+            if (destination != null && player.isAlive() && player.level() != destination) {
+                player.changeDimension(destination, new OldBroadcastTeleporter(entry.getValue().arrival()));
+            } else {
+                ModNetwork.INSTANCE.send(PacketDistributor.PLAYER.with(() -> player), new TuningInPacket(false));
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        PENDING.clear();
+    }
+
+    private static Vec3 destination(ServerLevel destWorld) {
         if (destWorld.dimension().equals(OldBroadcastDimensions.OLD_BROADCAST_LEVEL)) {
-            // Teleport to studio entrance
-            return new PortalInfo(new Vec3(8, 66, 8), Vec3.ZERO, entity.getYRot(), entity.getXRot());
-        } else {
-            // Return to overworld spawn
-            BlockPos spawnPos = destWorld.getSharedSpawnPos();
-            return new PortalInfo(new Vec3(spawnPos.getX() + 0.5, spawnPos.getY(), spawnPos.getZ() + 0.5),
-                    Vec3.ZERO, entity.getYRot(), entity.getXRot());
+            // Spread over the rooms around the entrance
+            return StudioSpawns.allocate(destWorld);
         }
+        // Return to overworld spawn
+        BlockPos spawnPos = destWorld.getSharedSpawnPos();
+        return new Vec3(spawnPos.getX() + 0.5, spawnPos.getY(), spawnPos.getZ() + 0.5);
+    }
+
+    @Override
+    public PortalInfo getPortalInfo(Entity entity, ServerLevel destWorld, Function<ServerLevel, PortalInfo> defaultPortalInfo) {
+        return new PortalInfo(arrival, Vec3.ZERO, entity.getYRot(), entity.getXRot());
     }
 
     @Override
@@ -51,4 +146,7 @@ public class OldBroadcastTeleporter implements ITeleporter {
 
         return repositionedEntity;
     }
+
+    private record Pending(ResourceKey<Level> destination, Vec3 arrival, CompletableFuture<Either<ChunkAccess, ChunkHolder.ChunkLoadingFailure>> future, int queuedTick) {
+    }
 }
@@ -0,0 +1,166 @@
+package net.idothehax.theoldbroadcast.world.dimension;
+
+import net.minecraft.core.Direction;
+import net.minecraft.util.BitStorage;
+import net.minecraft.util.Mth;
+import net.minecraft.util.SimpleBitStorage;
+import net.minecraft.util.ZeroBitStorage;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.StairBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.levelgen.Heightmap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes studio columns straight into chunk sections instead of going through
+ * {@link ChunkAccess#setBlockState} once per block.
+ * <p>
+ * Each story fills exactly one section. The ground story, the first upper story and the roof are
+ * built in one pass each: the palette and the packed block ids are worked out together and the
+ * section is rebuilt around them, so no block goes through the palette's per-block lookup and
+ * resize path. Every further story is a copy of the first upper section, and sections above the
+ * roof are never touched so they keep their has-only-air state.
+ */
+public final class StudioChunkWriter {
+    private static final BlockState STAIR = Blocks.STONE_BRICK_STAIRS.defaultBlockState().setValue(StairBlock.FACING, Direction.EAST);
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+    // The most states a section palette holds before switching to global ids
+    private static final int MAX_PALETTE_SIZE = 256;
+
+    private StudioChunkWriter() {
+    }
+
+    /**
+     * Fills the chunk from a 16x16 column layout, indexed {@code z << 4 | x}, and returns the
+     * number of stories that were actually written.
+     */
+    public static int write(ChunkAccess chunk, StudioColumn[] columns, int floors) {
+        floors = Math.min(floors, StudioColumn.maxFloors(chunk.getMaxBuildHeight()));
+        if (floors <= 0 || StudioColumn.FLOOR_Y < chunk.getMinBuildHeight()) return 0;
+
+        LevelChunkSection[] sections = chunk.getSections();
+        int ground = chunk.getSectionIndex(StudioColumn.storyBottom(0));
+        sections[ground] = fill(sections[ground], (i, y) -> columns[i].storyState(y, true));
+        if (floors > 1) {
+            int firstUpper = chunk.getSectionIndex(StudioColumn.storyBottom(1));
+            sections[firstUpper] = fill(sections[firstUpper], (i, y) -> columns[i].storyState(y, false));
+
+            // Upper stories are identical, so the rest are straight copies of the first one
+            for (int story = 2; story < floors; story++) {
+                int index = chunk.getSectionIndex(StudioColumn.storyBottom(story));
+                sections[index] = new LevelChunkSection(sections[firstUpper].getStates().copy(), sections[index].getBiomes());
+            }
+        }
+        int roof = chunk.getSectionIndex(StudioColumn.roofY(floors));
+        sections[roof] = fill(sections[roof], (i, y) -> y == 0 ? columns[i].roofState() : null);
+
+        // Heightmaps come straight from the column templates, one update per column and type
+        for (Heightmap.Types type : Heightmap.Types.values()) {
+            Heightmap heightmap = chunk.getOrCreateHeightmapUnprimed(type);
+            for (int i = 0; i < 256; i++) {
+                int height = columns[i].height(type, floors);
+                if (height == Integer.MIN_VALUE) continue;
+                heightmap.update(i & 15, height - 1, i >> 4, columns[i].stateAt(height - 1, floors));
+            }
+        }
+        return floors;
+    }
+
+    /**
+     * Cuts the staircases in, each climbing {@link StudioFloorplan#STAIR_LENGTH} columns east from
+     * its start through every story but the top one. The top step of a flight replaces the floor
+     * block it leads onto, so it ends flush with the story above. Runs outside the chunk are
+     * clipped.
+     */
+    public static void writeStairs(ChunkAccess chunk, List<StudioFloorplan.StairRun> runs, int floors) {
+        int minX = chunk.getPos().getMinBlockX();
+        int minZ = chunk.getPos().getMinBlockZ();
+        for (StudioFloorplan.StairRun run : runs) {
+            int z = run.z() - minZ;
+            if (z < 0 || z > 15) continue;
+            for (int story = 0; story < floors - 1; story++) {
+                LevelChunkSection section = section(chunk, StudioColumn.storyBottom(story));
+                LevelChunkSection above = section(chunk, StudioColumn.storyBottom(story + 1));
+                for (int step = 0; step < StudioFloorplan.STAIR_LENGTH; step++) {
+                    int x = run.startX() + step - minX;
+                    if (x < 0 || x > 15) continue;
+                    int stepY = step + 1;
+                    if (stepY >= StudioColumn.STORY_HEIGHT) {
+                        above.setBlockState(x, stepY - StudioColumn.STORY_HEIGHT, z, STAIR, false);
+                        continue;
+                    }
+                    section.setBlockState(x, stepY, z, STAIR, false);
+                    // Headroom above the step, and an opening in the slab overhead
+                    for (int y = stepY + 1; y < StudioColumn.STORY_HEIGHT; y++) {
+                        section.setBlockState(x, y, z, AIR, false);
+                    }
+                    above.setBlockState(x, 0, z, AIR, false);
+                }
+            }
+        }
+    }
+
+    private static LevelChunkSection section(ChunkAccess chunk, int y) {
+        return chunk.getSection(chunk.getSectionIndex(y));
+    }
+
+    /**
+     * Rebuilds a section from a layer of states, {@code null} keeping what the section holds.
+     * The palette and the packed ids come out of the same pass over the section, in its y/z/x
+     * storage order, and the new section counts its own blocks, so has-only-air stays right.
+     */
+    private static LevelChunkSection fill(LevelChunkSection section, Layer layer) {
+        boolean empty = section.hasOnlyAir();
+        List<BlockState> palette = new ArrayList<>();
+        int[] ids = new int[4096];
+        BlockState last = null;
+        int lastId = -1;
+        for (int y = 0; y < 16; y++) {
+            for (int i = 0; i < 256; i++) {
+                BlockState state = layer.state(i, y);
+                if (state == null) state = empty ? AIR : section.getBlockState(i & 15, y, i >> 4);
+                // Runs of the same state are the common case, so check the last one first
+                if (state != last) {
+                    last = state;
+                    lastId = palette.indexOf(state);
+                    if (lastId < 0) {
+                        lastId = palette.size();
+                        palette.add(state);
+                    }
+                }
+                ids[y << 8 | i] = lastId;
+            }
+        }
+
+        if (palette.size() > MAX_PALETTE_SIZE) {
+            // Too varied for a local palette; let the section pick its own representation
+            section.acquire();
+            try {
+                for (int index = 0; index < 4096; index++) {
+                    section.setBlockState(index & 15, index >> 8, index >> 4 & 15, palette.get(ids[index]), false);
+                }
+            } finally {
+                section.release();
+            }
+            return section;
+        }
+
+        PalettedContainer.Configuration<BlockState> configuration =
+                PalettedContainer.Strategy.SECTION_STATES.getConfiguration(Block.BLOCK_STATE_REGISTRY, Mth.ceillog2(palette.size()));
+        BitStorage storage = configuration.bits() == 0 ? new ZeroBitStorage(4096) : new SimpleBitStorage(configuration.bits(), 4096, ids);
+        PalettedContainer<BlockState> states = new PalettedContainer<>(Block.BLOCK_STATE_REGISTRY,
+                PalettedContainer.Strategy.SECTION_STATES, configuration, storage, palette);
+        return new LevelChunkSection(states, section.getBiomes());
+    }
+
+    @FunctionalInterface
+    private interface Layer {
+        BlockState state(int column, int y);
+    }
+}
@@ -0,0 +1,143 @@
+package net.idothehax.theoldbroadcast.world.dimension;
+
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.LadderBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.Heightmap;
+
+/**
+ * The handful of column shapes the studio is made of. Every story is exactly one chunk section
+ * tall, so each shape is built once as a 16-block strip for the ground story and one for the
+ * stories above it, and chunk generation only has to pick a shape per column.
+ */
+public enum StudioColumn {
+    FLOOR,
+    WALL,
+    LAMP,
+    // Lift shaft climbing through every story, attached to a wall on its west side
+    LADDER;
+
+    public static final int FLOOR_Y = 64;
+    public static final int STORY_HEIGHT = 16;
+    public static final int LAMP_Y = STORY_HEIGHT - 1;
+
+    private static final BlockState CONCRETE = Blocks.GRAY_CONCRETE.defaultBlockState();
+    private static final BlockState WOOL = Blocks.BLACK_WOOL.defaultBlockState();
+    private static final BlockState LAMP_BLOCK = Blocks.REDSTONE_LAMP.defaultBlockState();
+    private static final BlockState LADDER_BLOCK = Blocks.LADDER.defaultBlockState().setValue(LadderBlock.FACING, Direction.EAST);
+
+    // Story-local states, null meaning air
+    private final BlockState[] ground = new BlockState[STORY_HEIGHT];
+    private final BlockState[] upper = new BlockState[STORY_HEIGHT];
+    // Per heightmap type: the highest matching local Y in an upper story, or -1
+    private final int[] upperTop = new int[Heightmap.Types.values().length];
+
+    static {
+        for (StudioColumn column : values()) {
+            column.ground[0] = CONCRETE;
+            column.upper[0] = CONCRETE;
+        }
+
+        for (int y = 1; y < STORY_HEIGHT; y++) {
+            WALL.ground[y] = WOOL;
+            WALL.upper[y] = WOOL;
+        }
+
+        LAMP.ground[LAMP_Y] = LAMP_BLOCK;
+        LAMP.upper[LAMP_Y] = LAMP_BLOCK;
+
+        // The shaft cuts through every slab above the ground floor
+        for (int y = 0; y < STORY_HEIGHT; y++) {
+            if (y > 0) LADDER.ground[y] = LADDER_BLOCK;
+            LADDER.upper[y] = LADDER_BLOCK;
+        }
+
+        for (StudioColumn column : values()) {
+            column.computeHeights();
+        }
+    }
+
+    private void computeHeights() {
+        for (Heightmap.Types type : Heightmap.Types.values()) {
+            int top = -1;
+            for (int y = STORY_HEIGHT - 1; y >= 0; y--) {
+                if (upper[y] != null && type.isOpaque().test(upper[y])) {
+                    top = y;
+                    break;
+                }
+            }
+            upperTop[type.ordinal()] = top;
+        }
+    }
+
+    public static int storyBottom(int story) {
+        return FLOOR_Y + story * STORY_HEIGHT;
+    }
+
+    /**
+     * The story a Y coordinate falls in, negative below the ground story.
+     */
+    public static int storyAt(int y) {
+        return Math.floorDiv(y - FLOOR_Y, STORY_HEIGHT);
+    }
+
+    public static int roofY(int floors) {
+        return storyBottom(floors);
+    }
+
+    /**
+     * The most stories that fit under the given build height, roof included.
+     */
+    public static int maxFloors(int maxBuildHeight) {
+        return Math.max(0, (maxBuildHeight - 1 - FLOOR_Y) / STORY_HEIGHT);
+    }
+
+    /**
+     * The state at a local Y within a story, or null for air.
+     */
+    public BlockState storyState(int localY, boolean groundStory) {
+        return groundStory ? ground[localY] : upper[localY];
+    }
+
+    /**
+     * The slab closing off the top story. Every column is roofed over.
+     */
+    public BlockState roofState() {
+        return CONCRETE;
+    }
+
+    /**
+     * Returns the state at the given world Y in a studio with the given number of stories, or
+     * null for air.
+     */
+    public BlockState stateAt(int y, int floors) {
+        if (y < FLOOR_Y) return null;
+        int story = (y - FLOOR_Y) / STORY_HEIGHT;
+        int localY = (y - FLOOR_Y) % STORY_HEIGHT;
+        if (story < floors) return storyState(localY, story == 0);
+        if (story == floors && localY == 0) return roofState();
+        return null;
+    }
+
+    /**
+     * The value the given heightmap holds for this column: one above the highest block matching
+     * the heightmap's predicate, or {@link Integer#MIN_VALUE} if no block in the column matches.
+     */
+    public int height(Heightmap.Types type, int floors) {
+        if (type.isOpaque().test(roofState())) {
+            return roofY(floors) + 1;
+        }
+        int top = upperTop[type.ordinal()];
+        if (top >= 0 && floors > 1) {
+            return storyBottom(floors - 1) + top + 1;
+        }
+        // Only the ground story is left to look at
+        for (int y = STORY_HEIGHT - 1; y >= 0; y--) {
+            if (ground[y] != null && type.isOpaque().test(ground[y])) {
+                return FLOOR_Y + y + 1;
+            }
+        }
+        return Integer.MIN_VALUE;
+    }
+}
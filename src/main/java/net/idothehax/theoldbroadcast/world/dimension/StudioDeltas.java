@@ -0,0 +1,453 @@
+package net.idothehax.theoldbroadcast.world.dimension;
+
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.idothehax.theoldbroadcast.Theoldbroadcast;
+import net.idothehax.theoldbroadcast.world.structure.StudioGeneration;
+import net.minecraft.Util;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.HolderGetter;
+import net.minecraft.core.SectionPos;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.ChestBlock;
+import net.minecraft.world.level.block.CrossCollisionBlock;
+import net.minecraft.world.level.block.FenceGateBlock;
+import net.minecraft.world.level.block.RedStoneWireBlock;
+import net.minecraft.world.level.block.SnowyDirtBlock;
+import net.minecraft.world.level.block.StairBlock;
+import net.minecraft.world.level.block.WallBlock;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.Property;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.chunk.storage.ChunkSerializer;
+import net.minecraft.world.level.dimension.DimensionType;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.storage.LevelResource;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.level.ChunkEvent;
+import net.minecraftforge.event.level.LevelEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Saves studio chunks in {@link net.idothehax.theoldbroadcast.Config.StudioStorage#DELTA} mode as
+ * the difference between the chunk and what generation produces for it, instead of as full chunk
+ * NBT. A delta lists every block that differs, as a palette plus one packed int per block, and
+ * every block entity in the chunk in full, including the chests, barrels and dispensers the room
+ * templates place, since their contents change without any block changing. Deltas are kept per
+ * region in {@code studio_deltas/r.<x>.<z>.dat} next to the dimension's region folder and are
+ * applied again when the regenerated chunk loads.
+ * <p>
+ * The generated blocks a chunk is compared against are worked out on a background thread, since
+ * that means generating the chunk again; only the comparison runs on the server thread, at the
+ * end of the tick the baseline is ready in. Blocks that only differ from their generated state
+ * in properties a block takes from its neighbours, like a pane's connections or a stair's corner
+ * shape, do not count as changed: generation and the chunk's post-processing give them those
+ * shapes again. When a delta is applied, the blocks next to the ones it restores are queued for
+ * that same post-processing, so they reshape against the restored blocks.
+ * <p>
+ * Dirty region files are written at the end of the tick they changed in, so a burst of chunk
+ * saves costs one write per region.
+ */
+@Mod.EventBusSubscriber(modid = Theoldbroadcast.MODID)
+public final class StudioDeltas {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final int POS_BITS = 20;
+    private static final int MAX_PALETTE = 1 << (Integer.SIZE - POS_BITS);
+
+    private static final Long2ObjectMap<Region> REGIONS = new Long2ObjectOpenHashMap<>();
+    // Chunks whose normal save was skipped, waiting for their generated baseline
+    private static final Long2ObjectMap<Pending> PENDING = new Long2ObjectOpenHashMap<>();
+    private static Path directory;
+
+    private StudioDeltas() {
+    }
+
+    /**
+     * Takes over the chunk's save: its generated blocks are worked out in the background, and
+     * the chunk is then recorded as a delta on the server thread. A chunk that cannot be
+     * expressed as a delta is written in full at that point instead.
+     */
+    public static void schedule(ServerLevel level, LevelChunk chunk) {
+        ChunkPos pos = chunk.getPos();
+        Pending pending = PENDING.get(pos.toLong());
+        if (pending != null) {
+            // Saved again before the baseline was ready; the baseline is the same, the blocks are newer
+            pending.chunk = chunk;
+            return;
+        }
+        CompletableFuture<ProtoChunk> baseline = CompletableFuture.supplyAsync(() -> StudioGeneration.generate(level, pos), Util.backgroundExecutor());
+        PENDING.put(pos.toLong(), new Pending(level, chunk, baseline));
+    }
+
+    private static void finish(Pending pending) {
+        ProtoChunk generated;
+        try {
+            generated = pending.baseline.join();
+        } catch (CompletionException e) {
+            LOGGER.error("Could not generate the baseline for studio chunk {}, saving it in full", pending.chunk.getPos(), e);
+            generated = null;
+        }
+        if (generated == null || !store(pending.level, pending.chunk, generated)) {
+            // Its normal save was skipped for the delta, so it is written in full here instead
+            forget(pending.level, pending.chunk.getPos());
+            pending.level.getChunkSource().chunkMap.write(pending.chunk.getPos(), ChunkSerializer.write(pending.level, pending.chunk));
+        }
+    }
+
+    /**
+     * Records the chunk's differences from its generated blocks. Returns false if the chunk
+     * cannot be expressed as a delta and has to be saved in full instead.
+     */
+    private static boolean store(ServerLevel level, LevelChunk chunk, ProtoChunk generated) {
+        Object2IntMap<BlockState> palette = new Object2IntOpenHashMap<>();
+        palette.defaultReturnValue(-1);
+        IntArrayList blocks = new IntArrayList();
+        LevelChunkSection[] sections = chunk.getSections();
+        LevelChunkSection[] original = generated.getSections();
+        for (int s = 0; s < sections.length; s++) {
+            if (sections[s].hasOnlyAir() && original[s].hasOnlyAir()) continue;
+            for (int i = 0; i < 4096; i++) {
+                int x = i & 15;
+                int y = i >> 8;
+                int z = i >> 4 & 15;
+                BlockState state = sections[s].getBlockState(x, y, z);
+                if (sameApartFromShape(state, original[s].getBlockState(x, y, z))) continue;
+                int id = palette.getInt(state);
+                if (id < 0) {
+                    id = palette.size();
+                    if (id >= MAX_PALETTE) return false;
+                    palette.put(state, id);
+                }
+                blocks.add(id << POS_BITS | s << 12 | i);
+            }
+        }
+
+        ListTag blockEntities = new ListTag();
+        for (BlockEntity blockEntity : chunk.getBlockEntities().values()) {
+            blockEntities.add(blockEntity.saveWithFullMetadata());
+        }
+
+        Region region = region(level, chunk.getPos());
+        region.replaceFullCopy(chunk.getPos());
+        if (blocks.isEmpty() && blockEntities.isEmpty()) {
+            region.remove(chunk.getPos());
+            return true;
+        }
+        BlockState[] states = new BlockState[palette.size()];
+        palette.forEach((state, id) -> states[id] = state);
+        ListTag paletteTag = new ListTag();
+        for (BlockState state : states) {
+            paletteTag.add(NbtUtils.writeBlockState(state));
+        }
+        CompoundTag tag = new CompoundTag();
+        tag.put("Palette", paletteTag);
+        tag.putIntArray("Blocks", blocks.toIntArray());
+        tag.put("BlockEntities", blockEntities);
+        region.put(chunk.getPos(), tag);
+        return true;
+    }
+
+    private static boolean sameApartFromShape(BlockState state, BlockState generated) {
+        if (state == generated) return true;
+        Block block = state.getBlock();
+        if (block != generated.getBlock()) return false;
+        for (Property<?> property : state.getProperties()) {
+            if (!isShapeProperty(block, property) && !state.getValue(property).equals(generated.getValue(property))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Properties these blocks only ever take from their neighbours in updateShape
+    private static boolean isShapeProperty(Block block, Property<?> property) {
+        if (block instanceof CrossCollisionBlock) {
+            return property == CrossCollisionBlock.NORTH || property == CrossCollisionBlock.EAST
+                    || property == CrossCollisionBlock.SOUTH || property == CrossCollisionBlock.WEST;
+        }
+        if (block instanceof WallBlock) {
+            return property == WallBlock.UP || property == WallBlock.NORTH_WALL || property == WallBlock.EAST_WALL
+                    || property == WallBlock.SOUTH_WALL || property == WallBlock.WEST_WALL;
+        }
+        if (block instanceof RedStoneWireBlock) {
+            return property == RedStoneWireBlock.NORTH || property == RedStoneWireBlock.EAST
+                    || property == RedStoneWireBlock.SOUTH || property == RedStoneWireBlock.WEST;
+        }
+        if (block instanceof StairBlock) return property == StairBlock.SHAPE;
+        if (block instanceof FenceGateBlock) return property == FenceGateBlock.IN_WALL;
+        if (block instanceof ChestBlock) return property == ChestBlock.TYPE;
+        if (block instanceof SnowyDirtBlock) return property == SnowyDirtBlock.SNOWY;
+        return false;
+    }
+
+    /**
+     * Drops the chunk's delta once it has been saved in full, so the delta is not applied over
+     * the newer copy.
+     */
+    public static void forget(ServerLevel level, ChunkPos pos) {
+        Region region = region(level, pos);
+        region.remove(pos);
+        region.keepFullCopy(pos);
+    }
+
+    @SubscribeEvent
+    public static void onChunkLoad(ChunkEvent.Load event) {
+        if (!(event.getLevel() instanceof ServerLevel level) || !(event.getChunk() instanceof LevelChunk chunk)
+                || !level.dimension().equals(OldBroadcastDimensions.OLD_BROADCAST_LEVEL)) {
+            return;
+        }
+        // A save of this chunk still waiting for its baseline holds newer blocks than the region
+        Pending pending = PENDING.remove(chunk.getPos().toLong());
+        if (pending != null) {
+            finish(pending);
+        }
+        CompoundTag tag = region(level, chunk.getPos()).get(chunk.getPos());
+        if (tag != null) {
+            apply(level, chunk, tag);
+        }
+    }
+
+    private static void apply(ServerLevel level, LevelChunk chunk, CompoundTag tag) {
+        HolderGetter<Block> blockLookup = level.holderLookup(Registries.BLOCK);
+        ListTag paletteTag = tag.getList("Palette", Tag.TAG_COMPOUND);
+        BlockState[] palette = new BlockState[paletteTag.size()];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = NbtUtils.readBlockState(blockLookup, paletteTag.getCompound(i));
+        }
+
+        // Written straight into the sections, as a chunk being read from disk would be, so no
+        // block's place or remove logic runs (a replaced container would drop its items)
+        LevelChunkSection[] sections = chunk.getSections();
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        for (int packed : tag.getIntArray("Blocks")) {
+            int s = packed >> 12 & 0xFF;
+            int i = packed & 0xFFF;
+            int id = packed >>> POS_BITS;
+            if (s >= sections.length || id >= palette.length) continue;
+            int x = i & 15;
+            int y = i >> 8;
+            int z = i >> 4 & 15;
+            pos.set(chunk.getPos().getBlockX(x), chunk.getSectionYFromSectionIndex(s) * 16 + y, chunk.getPos().getBlockZ(z));
+            chunk.removeBlockEntity(pos);
+            sections[s].setBlockState(x, y, z, palette[id], false);
+            for (Map.Entry<Heightmap.Types, Heightmap> heightmap : chunk.getHeightmaps()) {
+                heightmap.getValue().update(x, pos.getY(), z, palette[id]);
+            }
+            level.getChunkSource().getLightEngine().checkBlock(pos);
+            for (Direction direction : Direction.values()) {
+                reshapeLater(chunk, pos.relative(direction));
+            }
+        }
+
+        for (Tag entry : tag.getList("BlockEntities", Tag.TAG_COMPOUND)) {
+            CompoundTag blockEntityTag = (CompoundTag) entry;
+            BlockPos blockEntityPos = BlockEntity.getPosFromTag(blockEntityTag);
+            BlockEntity blockEntity = BlockEntity.loadStatic(blockEntityPos, chunk.getBlockState(blockEntityPos), blockEntityTag);
+            if (blockEntity != null) {
+                chunk.addAndRegisterBlockEntity(blockEntity);
+            }
+        }
+    }
+
+    // Queued for the chunk's post-processing, which runs before it first ticks
+    private static void reshapeLater(ChunkAccess chunk, BlockPos pos) {
+        if (SectionPos.blockToSectionCoord(pos.getX()) != chunk.getPos().x || SectionPos.blockToSectionCoord(pos.getZ()) != chunk.getPos().z
+                || chunk.isOutsideBuildHeight(pos)) {
+            return;
+        }
+        chunk.addPackedPostProcess(ProtoChunk.packOffsetCoordinates(pos), chunk.getSectionIndex(pos.getY()));
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            ObjectIterator<Pending> iterator = PENDING.values().iterator();
+            while (iterator.hasNext()) {
+                Pending pending = iterator.next();
+                if (pending.baseline.isDone()) {
+                    iterator.remove();
+                    finish(pending);
+                }
+            }
+            flush();
+        }
+    }
+
+    // The level's last chunk saves happen just before it unloads, so their deltas are finished here
+    @SubscribeEvent
+    public static void onLevelUnload(LevelEvent.Unload event) {
+        if (!(event.getLevel() instanceof ServerLevel level)) return;
+        ObjectIterator<Pending> iterator = PENDING.values().iterator();
+        while (iterator.hasNext()) {
+            Pending pending = iterator.next();
+            if (pending.level == level) {
+                iterator.remove();
+                finish(pending);
+            }
+        }
+        flush();
+    }
+
+    @SubscribeEvent
+    public static void onLevelSave(LevelEvent.Save event) {
+        flush();
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        flush();
+        PENDING.clear();
+        REGIONS.clear();
+        directory = null;
+    }
+
+    private static Region region(ServerLevel level, ChunkPos pos) {
+        if (directory == null) {
+            Path root = level.getServer().getWorldPath(LevelResource.ROOT);
+            directory = DimensionType.getStorageFolder(level.dimension(), root).resolve("studio_deltas");
+        }
+        int regionX = pos.getRegionX();
+        int regionZ = pos.getRegionZ();
+        return REGIONS.computeIfAbsent(ChunkPos.asLong(regionX, regionZ), key -> Region.read(level, directory.resolve("r." + regionX + "." + regionZ + ".dat")));
+    }
+
+    private static void flush() {
+        for (Region region : REGIONS.values()) {
+            if (region.dirty) {
+                region.write();
+            }
+        }
+    }
+
+    private static final class Pending {
+        private final ServerLevel level;
+        private final CompletableFuture<ProtoChunk> baseline;
+        private LevelChunk chunk;
+
+        private Pending(ServerLevel level, LevelChunk chunk, CompletableFuture<ProtoChunk> baseline) {
+            this.level = level;
+            this.chunk = chunk;
+            this.baseline = baseline;
+        }
+    }
+
+    private static final class Region {
+        private final ServerLevel level;
+        private final Path file;
+        private final CompoundTag chunks;
+        // Chunks whose full copy in the level's region files is cleared once this file is written
+        private final LongSet replaced = new LongOpenHashSet();
+        private boolean dirty;
+
+        private Region(ServerLevel level, Path file, CompoundTag chunks) {
+            this.level = level;
+            this.file = file;
+            this.chunks = chunks;
+        }
+
+        static Region read(ServerLevel level, Path file) {
+            CompoundTag chunks = new CompoundTag();
+            if (Files.exists(file)) {
+                try {
+                    chunks = NbtIo.readCompressed(file.toFile());
+                } catch (IOException e) {
+                    LOGGER.error("Could not read studio deltas from {}, its chunks load as generated", file, e);
+                }
+            }
+            return new Region(level, file, chunks);
+        }
+
+        CompoundTag get(ChunkPos pos) {
+            String key = key(pos);
+            return chunks.contains(key, Tag.TAG_COMPOUND) ? chunks.getCompound(key) : null;
+        }
+
+        void put(ChunkPos pos, CompoundTag delta) {
+            chunks.put(key(pos), delta);
+            dirty = true;
+        }
+
+        void remove(ChunkPos pos) {
+            String key = key(pos);
+            if (chunks.contains(key)) {
+                chunks.remove(key);
+                dirty = true;
+            }
+        }
+
+        /**
+         * Clears any full copy of the chunk in the level's region files, once its delta is safely on
+         * disk. A full copy saved before the switch to DELTA would otherwise load instead of the
+         * regenerated chunk, and the delta would be applied over it.
+         */
+        void replaceFullCopy(ChunkPos pos) {
+            replaced.add(pos.toLong());
+            dirty = true;
+        }
+
+        void keepFullCopy(ChunkPos pos) {
+            replaced.remove(pos.toLong());
+        }
+
+        void write() {
+            try {
+                if (chunks.isEmpty()) {
+                    Files.deleteIfExists(file);
+                } else {
+                    Files.createDirectories(file.getParent());
+                    // Written beside the old file and moved over it, so a crash never leaves half a file
+                    File temp = file.resolveSibling(file.getFileName() + ".tmp").toFile();
+                    NbtIo.writeCompressed(chunks, temp);
+                    Files.move(temp.toPath(), file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                dirty = false;
+            } catch (IOException e) {
+                // The full copies stay until a later write succeeds, so nothing is lost meanwhile
+                LOGGER.error("Could not write studio deltas to {}", file, e);
+                return;
+            }
+            LongIterator iterator = replaced.iterator();
+            while (iterator.hasNext()) {
+                level.getChunkSource().chunkMap.write(new ChunkPos(iterator.nextLong()), null);
+            }
+            replaced.clear();
+        }
+
+        private static String key(ChunkPos pos) {
+            return pos.getRegionLocalX() + "," + pos.getRegionLocalZ();
+        }
+    }
+}
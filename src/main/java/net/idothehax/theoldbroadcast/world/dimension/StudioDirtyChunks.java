@@ -0,0 +1,150 @@
+package net.idothehax.theoldbroadcast.world.dimension;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.idothehax.theoldbroadcast.Config;
+import net.idothehax.theoldbroadcast.Theoldbroadcast;
+import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraftforge.event.entity.player.PlayerInteractEvent;
+import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.event.level.ExplosionEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * Tracks which studio chunks players have changed, for {@link Config#studioStorage}. Every other
+ * studio chunk is exactly what the generator produces from the seed, so it need not be written to
+ * the region files at all and is simply generated again the next time it loads.
+ * <p>
+ * Changes are picked up from block updates, placing, breaking, explosions and right-clicks on
+ * blocks (the last for container contents, which change without a block update). The record is one
+ * 1024-bit map per 32x32 chunk region file, stored in the dimension's saved data.
+ */
+@Mod.EventBusSubscriber(modid = Theoldbroadcast.MODID)
+public final class StudioDirtyChunks extends SavedData {
+    private static final String DATA_NAME = Theoldbroadcast.MODID + "_dirty_chunks";
+    private static final int REGION_SHIFT = 5;
+    private static final int WORDS = (1 << REGION_SHIFT * 2) / Long.SIZE;
+
+    private final Long2ObjectMap<long[]> regions = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Whether the chunk should go through the normal chunk save, per {@link Config#studioStorage}.
+     * Unchanged chunks are never saved outside FULL mode, and in DELTA mode changed chunks are
+     * handed to {@link StudioDeltas} instead, which saves them in full itself if a delta will not do.
+     */
+    public static boolean shouldSave(ServerLevel level, ChunkAccess chunk) {
+        // Chunks with nothing new to save are left to the normal save, which skips them
+        if (Config.studioStorage == null || !chunk.isUnsaved() || !level.dimension().equals(OldBroadcastDimensions.OLD_BROADCAST_LEVEL)) {
+            return true;
+        }
+        boolean dirty = get(level).isDirty(chunk.getPos());
+        if (Config.studioStorage == Config.StudioStorage.DELTA && dirty && chunk instanceof LevelChunk levelChunk) {
+            StudioDeltas.schedule(level, levelChunk);
+            return false;
+        }
+        if (Config.studioStorage != Config.StudioStorage.FULL && !dirty) {
+            return false;
+        }
+        // Saved in full from here on, so a delta left over from DELTA mode must not be applied over it
+        if (dirty) {
+            StudioDeltas.forget(level, chunk.getPos());
+        }
+        return true;
+    }
+
+    public static void markDirty(LevelAccessor level, BlockPos pos) {
+        if (level instanceof ServerLevel serverLevel && serverLevel.dimension().equals(OldBroadcastDimensions.OLD_BROADCAST_LEVEL)) {
+            get(serverLevel).mark(new ChunkPos(pos));
+        }
+    }
+
+    // Tracked whatever the mode, so switching away from FULL later keeps everything changed so far
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onNeighborNotify(BlockEvent.NeighborNotifyEvent event) {
+        markDirty(event.getLevel(), event.getPos());
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onPlace(BlockEvent.EntityPlaceEvent event) {
+        if (!event.isCanceled()) markDirty(event.getLevel(), event.getPos());
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onBreak(BlockEvent.BreakEvent event) {
+        if (!event.isCanceled()) markDirty(event.getLevel(), event.getPos());
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onExplosion(ExplosionEvent.Detonate event) {
+        Level level = event.getLevel();
+        for (BlockPos pos : event.getAffectedBlocks()) {
+            markDirty(level, pos);
+        }
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onRightClickBlock(PlayerInteractEvent.RightClickBlock event) {
+        if (!event.isCanceled()) markDirty(event.getLevel(), event.getPos());
+    }
+
+    private static StudioDirtyChunks get(ServerLevel level) {
+        return level.getDataStorage().computeIfAbsent(StudioDirtyChunks::load, StudioDirtyChunks::new, DATA_NAME);
+    }
+
+    public boolean isDirty(ChunkPos pos) {
+        long[] bits = regions.get(ChunkPos.asLong(pos.getRegionX(), pos.getRegionZ()));
+        int bit = bit(pos);
+        return bits != null && (bits[bit >> 6] & 1L << bit) != 0;
+    }
+
+    private void mark(ChunkPos pos) {
+        long[] bits = regions.computeIfAbsent(ChunkPos.asLong(pos.getRegionX(), pos.getRegionZ()), key -> new long[WORDS]);
+        int bit = bit(pos);
+        if ((bits[bit >> 6] & 1L << bit) == 0) {
+            bits[bit >> 6] |= 1L << bit;
+            setDirty();
+        }
+    }
+
+    private static int bit(ChunkPos pos) {
+        return pos.getRegionLocalZ() << REGION_SHIFT | pos.getRegionLocalX();
+    }
+
+    static StudioDirtyChunks load(CompoundTag tag) {
+        StudioDirtyChunks data = new StudioDirtyChunks();
+        for (Tag entry : tag.getList("Regions", Tag.TAG_COMPOUND)) {
+            CompoundTag region = (CompoundTag) entry;
+            long[] bits = region.getLongArray("Chunks");
+            if (bits.length == WORDS) {
+                data.regions.put(ChunkPos.asLong(region.getInt("X"), region.getInt("Z")), bits);
+            }
+        }
+        return data;
+    }
+
+    @Override
+    public CompoundTag save(CompoundTag tag) {
+        ListTag list = new ListTag();
+        for (Long2ObjectMap.Entry<long[]> entry : regions.long2ObjectEntrySet()) {
+            CompoundTag region = new CompoundTag();
+            region.putInt("X", ChunkPos.getX(entry.getLongKey()));
+            region.putInt("Z", ChunkPos.getZ(entry.getLongKey()));
+            region.putLongArray("Chunks", entry.getValue());
+            list.add(region);
+        }
+        tag.put("Regions", list);
+        return tag;
+    }
+}
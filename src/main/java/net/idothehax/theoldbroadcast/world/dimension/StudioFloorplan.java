@@ -0,0 +1,429 @@
+package net.idothehax.theoldbroadcast.world.dimension;
+
+import net.idothehax.theoldbroadcast.world.structure.StudioStructure.RoomType;
+import net.minecraft.util.RandomSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The floorplan of one 512x512 region of the studio: which columns are walls, doorways or lift
+ * shafts, which rooms sit between them and where the staircases between stories run. Walls are
+ * the same on every story; room types can differ per story. Plans are immutable once built and
+ * shared between threads.
+ * <p>
+ * Each region owns the wall lines along its minimum X and Z edges, so neighbouring plans never
+ * disagree about a shared wall.
+ */
+public final class StudioFloorplan {
+    public static final int REGION_SHIFT = 9;
+    public static final int REGION_SIZE = 1 << REGION_SHIFT;
+    private static final int CHUNKS_PER_REGION = REGION_SIZE >> 4;
+
+    // Interior width limits for rooms cut by the BSP planner
+    private static final int MIN_ROOM = 10;
+    private static final int MAX_ROOM = 48;
+    private static final int DOOR_HALF_WIDTH = 1;
+    private static final int BORDER_DOOR_SPACING = 64;
+    // One step per block of story height, the last of them set into the floor of the story above
+    public static final int STAIR_LENGTH = StudioColumn.STORY_HEIGHT;
+
+    // Types rooms are drawn from; stairwells are assigned separately
+    private static final RoomType[] ROOM_TYPES = {
+            RoomType.CORRIDOR, RoomType.CINEMA, RoomType.BROADCAST_ROOM, RoomType.EDITING_LAB,
+            RoomType.SOUNDSTAGE, RoomType.STORAGE, RoomType.ANTENNA_ROOM
+    };
+
+    private final int regionX;
+    private final int regionZ;
+    private final int floors;
+    // One bit per column, row-major in region-local z then x
+    private final long[] walls = new long[REGION_SIZE * REGION_SIZE / 64];
+    private final long[] doorways = new long[REGION_SIZE * REGION_SIZE / 64];
+    private final long[] ladders = new long[REGION_SIZE * REGION_SIZE / 64];
+    private final List<StairRun> stairs = new ArrayList<>();
+    private final List<Room> rooms = new ArrayList<>();
+    // Room ids overlapping each chunk, indexed by region-local chunk z * 32 + x
+    private final int[][] chunkRooms = new int[CHUNKS_PER_REGION * CHUNKS_PER_REGION][];
+    // Room ids whose minimum corner lies in each chunk, same indexing; that chunk owns the room's structure start
+    private final int[][] chunkStarts = new int[CHUNKS_PER_REGION * CHUNKS_PER_REGION][];
+
+    private StudioFloorplan(int regionX, int regionZ, int floors) {
+        this.regionX = regionX;
+        this.regionZ = regionZ;
+        this.floors = floors;
+    }
+
+    /**
+     * Cuts the region into rooms with a binary space partition. Every split wall gets a doorway,
+     * and the region's own border walls get doorways at regular intervals, so the whole studio
+     * stays connected.
+     */
+    static StudioFloorplan bsp(int regionX, int regionZ, int floors, RandomSource random) {
+        StudioFloorplan plan = new StudioFloorplan(regionX, regionZ, floors);
+
+        // Border walls along the minimum edges, shared with the neighbouring regions
+        for (int i = 0; i < REGION_SIZE; i++) {
+            plan.setWall(0, i);
+            plan.setWall(i, 0);
+        }
+        for (int start = 0; start < REGION_SIZE; start += BORDER_DOOR_SPACING) {
+            int center = start + 8 + random.nextInt(BORDER_DOOR_SPACING - 16);
+            plan.setDoorway(0, center);
+            int other = start + 8 + random.nextInt(BORDER_DOOR_SPACING - 16);
+            plan.setDoorway(other, 0);
+        }
+
+        plan.split(1, 1, REGION_SIZE, REGION_SIZE, random);
+        plan.connectStories(random);
+        plan.indexRooms();
+        return plan;
+    }
+
+    /**
+     * Rasterizes a repeating tile layout into a plan, one room per tile.
+     */
+    static StudioFloorplan tiled(int regionX, int regionZ, int floors, StudioLayout layout, RandomSource random) {
+        StudioFloorplan plan = new StudioFloorplan(regionX, regionZ, floors);
+        int minChunkX = regionX * CHUNKS_PER_REGION;
+        int minChunkZ = regionZ * CHUNKS_PER_REGION;
+
+        for (int cz = 0; cz < CHUNKS_PER_REGION; cz++) {
+            for (int cx = 0; cx < CHUNKS_PER_REGION; cx++) {
+                StudioLayout.Slice slice = layout.slice(minChunkX + cx, minChunkZ + cz);
+                for (int z = 0; z < 16; z++) {
+                    // Slice rows are 16 bits wide and chunk-aligned, so each one lands inside a single word
+                    int row = (int) (slice.walls()[z >> 2] >>> ((z & 3) << 4)) & 0xFFFF;
+                    int doorRow = (int) (slice.doorways()[z >> 2] >>> ((z & 3) << 4)) & 0xFFFF;
+                    int index = ((cz << 4) + z) * REGION_SIZE + (cx << 4);
+                    plan.walls[index >> 6] |= (long) row << (index & 63);
+                    plan.doorways[index >> 6] |= (long) doorRow << (index & 63);
+                }
+            }
+        }
+
+        int size = layout.roomSize();
+        int minX = regionX << REGION_SHIFT;
+        int minZ = regionZ << REGION_SHIFT;
+        int firstTileX = Math.floorDiv(minX, size);
+        int firstTileZ = Math.floorDiv(minZ, size);
+        for (int tz = firstTileZ; tz * size < minZ + REGION_SIZE; tz++) {
+            for (int tx = firstTileX; tx * size < minX + REGION_SIZE; tx++) {
+                // Room interiors are the tile minus its boundary walls, clipped to this region
+                int x0 = Math.max(tx * size + 1, minX) - minX;
+                int z0 = Math.max(tz * size + 1, minZ) - minZ;
+                int x1 = Math.min(tx * size + size - 1, minX + REGION_SIZE) - minX;
+                int z1 = Math.min(tz * size + size - 1, minZ + REGION_SIZE) - minZ;
+                if (x1 > x0 && z1 > z0) {
+                    plan.addRoom(x0, z0, x1, z1, random);
+                }
+            }
+        }
+        plan.connectStories(random);
+        plan.indexRooms();
+        return plan;
+    }
+
+    private void split(int x0, int z0, int x1, int z1, RandomSource random) {
+        int width = x1 - x0;
+        int depth = z1 - z0;
+        boolean canSplitX = width >= 2 * MIN_ROOM + 1;
+        boolean canSplitZ = depth >= 2 * MIN_ROOM + 1;
+        boolean small = width <= MAX_ROOM && depth <= MAX_ROOM;
+
+        if ((!canSplitX && !canSplitZ) || (small && random.nextInt(3) == 0)) {
+            addRoom(x0, z0, x1, z1, random);
+            return;
+        }
+
+        boolean splitX;
+        if (!canSplitZ) {
+            splitX = true;
+        } else if (!canSplitX) {
+            splitX = false;
+        } else if (width * 4 > depth * 5) {
+            splitX = true;
+        } else if (depth * 4 > width * 5) {
+            splitX = false;
+        } else {
+            splitX = random.nextBoolean();
+        }
+
+        if (splitX) {
+            int wall = x0 + MIN_ROOM + random.nextInt(width - 2 * MIN_ROOM);
+            for (int z = z0; z < z1; z++) {
+                setWall(wall, z);
+            }
+            setDoorway(wall, z0 + 1 + random.nextInt(depth - 2));
+            split(x0, z0, wall, z1, random);
+            split(wall + 1, z0, x1, z1, random);
+        } else {
+            int wall = z0 + MIN_ROOM + random.nextInt(depth - 2 * MIN_ROOM);
+            for (int x = x0; x < x1; x++) {
+                setWall(x, wall);
+            }
+            setDoorway(x0 + 1 + random.nextInt(width - 2), wall);
+            split(x0, z0, x1, wall, random);
+            split(x0, wall + 1, x1, z1, random);
+        }
+    }
+
+    private void addRoom(int x0, int z0, int x1, int z1, RandomSource random) {
+        int minX = regionX << REGION_SHIFT;
+        int minZ = regionZ << REGION_SHIFT;
+        RoomType[] types = new RoomType[floors];
+        for (int floor = 0; floor < floors; floor++) {
+            types[floor] = ROOM_TYPES[random.nextInt(ROOM_TYPES.length)];
+        }
+        rooms.add(new Room(rooms.size(), minX + x0, minZ + z0, minX + x1 - 1, minZ + z1 - 1, types, random.nextLong()));
+    }
+
+    /**
+     * Turns some rooms into stairwells and puts lift shafts in some others, so every story can be
+     * reached from the ground floor.
+     */
+    private void connectStories(RandomSource random) {
+        if (floors < 2) return;
+        int minX = regionX << REGION_SHIFT;
+        int minZ = regionZ << REGION_SHIFT;
+
+        for (int i = 0; i < rooms.size(); i++) {
+            Room room = rooms.get(i);
+            int roll = random.nextInt(8);
+            if (roll == 0 && room.maxX() - room.minX() + 1 >= STAIR_LENGTH + 2 && isClearRow(room.minX() + 1, room.minZ(), STAIR_LENGTH + 1)) {
+                // Staircase along the room's north edge, leaving the shaft column and the landing free
+                stairs.add(new StairRun(room.minX() + 1, room.minZ()));
+                RoomType[] types = new RoomType[floors];
+                Arrays.fill(types, RoomType.STAIRWELL);
+                rooms.set(i, new Room(room.id(), room.minX(), room.minZ(), room.maxX(), room.maxZ(), types, room.seed()));
+            } else if (roll <= 2) {
+                // Ladder in the room's west edge, against a solid stretch of wall
+                for (int z = room.minZ() + 1; z < room.maxZ(); z++) {
+                    int localX = room.minX() - minX;
+                    int localZ = z - minZ;
+                    if (isWallLocal(localX - 1, localZ) && !isWallLocal(localX, localZ) && localX > 0) {
+                        int index = localZ * REGION_SIZE + localX;
+                        ladders[index >> 6] |= 1L << index;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isClearRow(int worldX, int worldZ, int length) {
+        int localZ = worldZ & (REGION_SIZE - 1);
+        for (int x = worldX; x < worldX + length; x++) {
+            int localX = x - (regionX << REGION_SHIFT);
+            if (localX >= REGION_SIZE || isWallLocal(localX, localZ)) return false;
+        }
+        return true;
+    }
+
+    private void indexRooms() {
+        List<List<Integer>> lists = new ArrayList<>(chunkRooms.length);
+        List<List<Integer>> starts = new ArrayList<>(chunkStarts.length);
+        for (int i = 0; i < chunkRooms.length; i++) {
+            lists.add(null);
+            starts.add(null);
+        }
+        int minChunkX = regionX * CHUNKS_PER_REGION;
+        int minChunkZ = regionZ * CHUNKS_PER_REGION;
+        for (Room room : rooms) {
+            int start = ((room.minZ() >> 4) - minChunkZ) * CHUNKS_PER_REGION + (room.minX() >> 4) - minChunkX;
+            if (starts.get(start) == null) {
+                starts.set(start, new ArrayList<>(2));
+            }
+            starts.get(start).add(room.id());
+            for (int cz = (room.minZ() >> 4) - minChunkZ; cz <= (room.maxZ() >> 4) - minChunkZ; cz++) {
+                for (int cx = (room.minX() >> 4) - minChunkX; cx <= (room.maxX() >> 4) - minChunkX; cx++) {
+                    int index = cz * CHUNKS_PER_REGION + cx;
+                    if (lists.get(index) == null) {
+                        lists.set(index, new ArrayList<>(4));
+                    }
+                    lists.get(index).add(room.id());
+                }
+            }
+        }
+        for (int i = 0; i < chunkRooms.length; i++) {
+            chunkRooms[i] = toArray(lists.get(i));
+            chunkStarts[i] = toArray(starts.get(i));
+        }
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        return list == null ? new int[0] : list.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private void setWall(int localX, int localZ) {
+        int index = localZ * REGION_SIZE + localX;
+        walls[index >> 6] |= 1L << index;
+    }
+
+    private void setDoorway(int localX, int localZ) {
+        // Doorways run along the wall they cut through
+        boolean alongZ = localX == 0 || isWallLocal(localX, localZ - 1) || isWallLocal(localX, localZ + 1);
+        for (int d = -DOOR_HALF_WIDTH; d <= DOOR_HALF_WIDTH; d++) {
+            int x = alongZ ? localX : localX + d;
+            int z = alongZ ? localZ + d : localZ;
+            if (x < 0 || z < 0 || x >= REGION_SIZE || z >= REGION_SIZE) continue;
+            int index = z * REGION_SIZE + x;
+            walls[index >> 6] &= ~(1L << index);
+            doorways[index >> 6] |= 1L << index;
+        }
+    }
+
+    private boolean isWallLocal(int localX, int localZ) {
+        if (localX < 0 || localZ < 0 || localX >= REGION_SIZE || localZ >= REGION_SIZE) return false;
+        int index = localZ * REGION_SIZE + localX;
+        return (walls[index >> 6] & 1L << index) != 0;
+    }
+
+    public int regionX() {
+        return regionX;
+    }
+
+    public int regionZ() {
+        return regionZ;
+    }
+
+    public int floors() {
+        return floors;
+    }
+
+    public boolean isWall(int worldX, int worldZ) {
+        return isWallLocal(worldX & (REGION_SIZE - 1), worldZ & (REGION_SIZE - 1));
+    }
+
+    public boolean isDoorway(int worldX, int worldZ) {
+        int index = (worldZ & (REGION_SIZE - 1)) * REGION_SIZE + (worldX & (REGION_SIZE - 1));
+        return (doorways[index >> 6] & 1L << index) != 0;
+    }
+
+    public boolean isLadder(int worldX, int worldZ) {
+        int index = (worldZ & (REGION_SIZE - 1)) * REGION_SIZE + (worldX & (REGION_SIZE - 1));
+        return (ladders[index >> 6] & 1L << index) != 0;
+    }
+
+    public StudioColumn columnAt(int worldX, int worldZ) {
+        if (isWall(worldX, worldZ)) return StudioColumn.WALL;
+        if (isLadder(worldX, worldZ)) return StudioColumn.LADDER;
+        // Lighting fixtures on a diagonal grid, never inside walls
+        return ((worldX & 15) + (worldZ & 15)) % 8 == 0 ? StudioColumn.LAMP : StudioColumn.FLOOR;
+    }
+
+    /**
+     * Builds the 16x16 column view of one chunk inside this region.
+     */
+    public StudioLayout.Slice slice(int chunkX, int chunkZ) {
+        long[] sliceWalls = new long[4];
+        long[] sliceDoorways = new long[4];
+        long[] lamps = new long[4];
+        StudioColumn[] columns = new StudioColumn[256];
+
+        int localX = (chunkX << 4) & (REGION_SIZE - 1);
+        int localZ = (chunkZ << 4) & (REGION_SIZE - 1);
+        for (int z = 0; z < 16; z++) {
+            int index = (localZ + z) * REGION_SIZE + localX;
+            long row = (walls[index >> 6] >>> (index & 63)) & 0xFFFFL;
+            long doorRow = (doorways[index >> 6] >>> (index & 63)) & 0xFFFFL;
+            long ladderRow = (ladders[index >> 6] >>> (index & 63)) & 0xFFFFL;
+            sliceWalls[z >> 2] |= row << ((z & 3) << 4);
+            sliceDoorways[z >> 2] |= doorRow << ((z & 3) << 4);
+            for (int x = 0; x < 16; x++) {
+                int i = z << 4 | x;
+                if ((row & 1L << x) != 0) {
+                    columns[i] = StudioColumn.WALL;
+                } else if ((ladderRow & 1L << x) != 0) {
+                    columns[i] = StudioColumn.LADDER;
+                } else if ((x + z) % 8 == 0) {
+                    lamps[i >> 6] |= 1L << i;
+                    columns[i] = StudioColumn.LAMP;
+                } else {
+                    columns[i] = StudioColumn.FLOOR;
+                }
+            }
+        }
+        return new StudioLayout.Slice(sliceWalls, sliceDoorways, lamps, columns);
+    }
+
+    /**
+     * Staircases in this region. There are only a few per region, so callers filter them by
+     * position themselves.
+     */
+    public List<StairRun> stairs() {
+        return Collections.unmodifiableList(stairs);
+    }
+
+    public List<Room> rooms() {
+        return Collections.unmodifiableList(rooms);
+    }
+
+    public Room room(int id) {
+        return rooms.get(id);
+    }
+
+    /**
+     * Ids of the rooms whose interior overlaps the given chunk. Callers must not modify the array.
+     */
+    public int[] roomsInChunk(int chunkX, int chunkZ) {
+        int cx = chunkX & (CHUNKS_PER_REGION - 1);
+        int cz = chunkZ & (CHUNKS_PER_REGION - 1);
+        return chunkRooms[cz * CHUNKS_PER_REGION + cx];
+    }
+
+    /**
+     * Ids of the rooms owned by the given chunk, meaning their minimum corner lies in it. Every
+     * room has exactly one owner, so a structure start built from this never overlaps another.
+     * Callers must not modify the array.
+     */
+    public int[] roomsStartingInChunk(int chunkX, int chunkZ) {
+        int cx = chunkX & (CHUNKS_PER_REGION - 1);
+        int cz = chunkZ & (CHUNKS_PER_REGION - 1);
+        return chunkStarts[cz * CHUNKS_PER_REGION + cx];
+    }
+
+    /**
+     * The room whose interior contains the column, or null for walls and doorways.
+     */
+    public Room roomAt(int worldX, int worldZ) {
+        for (int id : roomsInChunk(worldX >> 4, worldZ >> 4)) {
+            Room room = rooms.get(id);
+            if (room.contains(worldX, worldZ)) {
+                return room;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A room's interior in world coordinates, inclusive, not counting the walls around it. The
+     * room has the same outline on every story but its own type on each one.
+     */
+    public record Room(int id, int minX, int minZ, int maxX, int maxZ, RoomType[] types, long seed) {
+        public RoomType type(int floor) {
+            return types[floor];
+        }
+
+        public boolean contains(int x, int z) {
+            return x >= minX && x <= maxX && z >= minZ && z <= maxZ;
+        }
+
+        public int centerX() {
+            return (minX + maxX) >> 1;
+        }
+
+        public int centerZ() {
+            return (minZ + maxZ) >> 1;
+        }
+    }
+
+    /**
+     * A straight staircase starting at the given column and climbing east, one block per column,
+     * from each story to the one above.
+     */
+    public record StairRun(int startX, int z) {
+    }
+}
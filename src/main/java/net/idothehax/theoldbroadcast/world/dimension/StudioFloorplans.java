@@ -0,0 +1,109 @@
+package net.idothehax.theoldbroadcast.world.dimension;
+
+import com.mojang.serialization.Codec;
+import net.minecraft.util.RandomSource;
+import net.minecraft.util.StringRepresentable;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.levelgen.PositionalRandomFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of region floorplans for one world. Plans are derived from the world seed,
+ * so a plan evicted here is simply rebuilt the same way the next time it is needed.
+ */
+public final class StudioFloorplans {
+    private static final int CAPACITY = 64;
+
+    private final Planner planner;
+    private final int floors;
+    private final PositionalRandomFactory random;
+    private final Map<Long, StudioFloorplan> plans = new LinkedHashMap<>(CAPACITY, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, StudioFloorplan> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    public StudioFloorplans(Planner planner, int floors, PositionalRandomFactory random) {
+        this.planner = planner;
+        this.floors = floors;
+        this.random = random;
+    }
+
+    public int floors() {
+        return floors;
+    }
+
+    public StudioFloorplan get(int regionX, int regionZ) {
+        long key = ChunkPos.asLong(regionX, regionZ);
+        synchronized (plans) {
+            StudioFloorplan plan = plans.get(key);
+            if (plan != null) return plan;
+        }
+
+        // Build outside the lock so other worldgen threads are not held up; if two threads race
+        // for the same region they build identical plans and the first one wins
+        StudioFloorplan plan = planner.plan(regionX, regionZ, floors, random.at(regionX, 0, regionZ));
+        synchronized (plans) {
+            StudioFloorplan existing = plans.putIfAbsent(key, plan);
+            return existing != null ? existing : plan;
+        }
+    }
+
+    /**
+     * The region's plan, from the cache if it is there but otherwise built without being added.
+     * For searches that sweep more regions than the cache holds, so they do not evict the plans
+     * chunk generation is working through.
+     */
+    public StudioFloorplan peek(int regionX, int regionZ) {
+        synchronized (plans) {
+            StudioFloorplan plan = plans.get(ChunkPos.asLong(regionX, regionZ));
+            if (plan != null) return plan;
+        }
+        return planner.plan(regionX, regionZ, floors, random.at(regionX, 0, regionZ));
+    }
+
+    public StudioFloorplan forBlock(int blockX, int blockZ) {
+        return get(blockX >> StudioFloorplan.REGION_SHIFT, blockZ >> StudioFloorplan.REGION_SHIFT);
+    }
+
+    public StudioFloorplan forChunk(int chunkX, int chunkZ) {
+        return get(chunkX >> (StudioFloorplan.REGION_SHIFT - 4), chunkZ >> (StudioFloorplan.REGION_SHIFT - 4));
+    }
+
+    public StudioColumn columnAt(int blockX, int blockZ) {
+        return forBlock(blockX, blockZ).columnAt(blockX, blockZ);
+    }
+
+    /**
+     * How a region is cut into rooms, selected by the generator's {@code layout} field.
+     */
+    public enum Planner implements StringRepresentable {
+        FLOORPLAN("floorplan"),
+        MAZE("maze"),
+        HALLS("halls");
+
+        public static final Codec<Planner> CODEC = StringRepresentable.fromEnum(Planner::values);
+
+        private final String name;
+
+        Planner(String name) {
+            this.name = name;
+        }
+
+        StudioFloorplan plan(int regionX, int regionZ, int floors, RandomSource random) {
+            return switch (this) {
+                case FLOORPLAN -> StudioFloorplan.bsp(regionX, regionZ, floors, random);
+                case MAZE -> StudioFloorplan.tiled(regionX, regionZ, floors, StudioLayout.get(StudioLayout.Style.MAZE, 32), random);
+                case HALLS -> StudioFloorplan.tiled(regionX, regionZ, floors, StudioLayout.get(StudioLayout.Style.HALLS, 32), random);
+            };
+        }
+
+        @Override
+        public String getSerializedName() {
+            return name;
+        }
+    }
+}
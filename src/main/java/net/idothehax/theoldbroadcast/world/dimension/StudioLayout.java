@@ -0,0 +1,167 @@
+package net.idothehax.theoldbroadcast.world.dimension;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed room layout for the studio maze. The wall, doorway and lamp pattern repeats
+ * every {@code roomSize} blocks, so every chunk maps onto one of a few 16x16 slices that are
+ * built once as bitmasks and column arrays and then shared by every chunk that needs them.
+ */
+public final class StudioLayout {
+    private static final Map<Key, StudioLayout> CACHE = new ConcurrentHashMap<>();
+
+    private final Style style;
+    private final int roomSize;
+    // Number of distinct slices along each axis before the pattern lines up with the chunk grid again
+    private final int slicesPerAxis;
+    private final Slice[] slices;
+
+    private StudioLayout(Style style, int roomSize) {
+        this.style = style;
+        this.roomSize = roomSize;
+        this.slicesPerAxis = lcm(roomSize, 16) / 16;
+        this.slices = new Slice[slicesPerAxis * slicesPerAxis];
+        for (int sz = 0; sz < slicesPerAxis; sz++) {
+            for (int sx = 0; sx < slicesPerAxis; sx++) {
+                slices[sz * slicesPerAxis + sx] = buildSlice(sx * 16, sz * 16);
+            }
+        }
+    }
+
+    public static StudioLayout get(Style style, int roomSize) {
+        if (roomSize < 8) {
+            throw new IllegalArgumentException("Room size must be at least 8, got " + roomSize);
+        }
+        return CACHE.computeIfAbsent(new Key(style, roomSize), key -> new StudioLayout(key.style(), key.roomSize()));
+    }
+
+    public Style style() {
+        return style;
+    }
+
+    public int roomSize() {
+        return roomSize;
+    }
+
+    /**
+     * The precomputed 16x16 slice for a chunk. Callers must not modify the returned arrays.
+     */
+    public Slice slice(int chunkX, int chunkZ) {
+        return slices[Math.floorMod(chunkZ, slicesPerAxis) * slicesPerAxis + Math.floorMod(chunkX, slicesPerAxis)];
+    }
+
+    public StudioColumn columnAt(int worldX, int worldZ) {
+        return slice(worldX >> 4, worldZ >> 4).column(worldX & 15, worldZ & 15);
+    }
+
+    public boolean isWall(int worldX, int worldZ) {
+        return columnAt(worldX, worldZ) == StudioColumn.WALL;
+    }
+
+    private Slice buildSlice(int originX, int originZ) {
+        long[] walls = new long[4];
+        long[] doorways = new long[4];
+        long[] lamps = new long[4];
+        StudioColumn[] columns = new StudioColumn[256];
+
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int localX = Math.floorMod(originX + x, roomSize);
+                int localZ = Math.floorMod(originZ + z, roomSize);
+                int i = z << 4 | x;
+                StudioColumn column;
+                if (style.isDoorway(localX, localZ, roomSize)) {
+                    doorways[i >> 6] |= 1L << i;
+                    column = StudioColumn.FLOOR;
+                } else if (style.isWall(localX, localZ, roomSize)) {
+                    walls[i >> 6] |= 1L << i;
+                    column = StudioColumn.WALL;
+                } else {
+                    column = StudioColumn.FLOOR;
+                }
+                // Lighting fixtures on a diagonal grid, never inside walls
+                if (column != StudioColumn.WALL && (x + z) % 8 == 0) {
+                    lamps[i >> 6] |= 1L << i;
+                    column = StudioColumn.LAMP;
+                }
+                columns[i] = column;
+            }
+        }
+        return new Slice(walls, doorways, lamps, columns);
+    }
+
+    private static int lcm(int a, int b) {
+        int x = a;
+        int y = b;
+        while (y != 0) {
+            int t = x % y;
+            x = y;
+            y = t;
+        }
+        return a / x * b;
+    }
+
+    /**
+     * Wall placement rules, in room-local coordinates.
+     */
+    public enum Style {
+        // Rooms with interior maze walls, the original studio layout
+        MAZE {
+            @Override
+            boolean isWall(int localX, int localZ, int roomSize) {
+                if (isBoundary(localX, localZ, roomSize)) return true;
+                if (localX % 8 == 0 && localZ % 4 != 0) return true;
+                return localZ % 8 == 0 && localX % 4 != 0;
+            }
+        },
+        // Open halls with only the room boundary walls
+        HALLS {
+            @Override
+            boolean isWall(int localX, int localZ, int roomSize) {
+                return isBoundary(localX, localZ, roomSize);
+            }
+        };
+
+        abstract boolean isWall(int localX, int localZ, int roomSize);
+
+        boolean isDoorway(int localX, int localZ, int roomSize) {
+            int doorMin = roomSize / 2 - 2;
+            int doorMax = roomSize / 2 + 2;
+            boolean edgeX = localX == 0 || localX == roomSize - 1;
+            boolean edgeZ = localZ == 0 || localZ == roomSize - 1;
+            return (edgeX && localZ >= doorMin && localZ <= doorMax) || (edgeZ && localX >= doorMin && localX <= doorMax);
+        }
+
+        static boolean isBoundary(int localX, int localZ, int roomSize) {
+            return localX == 0 || localX == roomSize - 1 || localZ == 0 || localZ == roomSize - 1;
+        }
+    }
+
+    /**
+     * One chunk-sized piece of the layout. Bitmasks are indexed {@code z << 4 | x}.
+     */
+    public record Slice(long[] walls, long[] doorways, long[] lamps, StudioColumn[] columns) {
+        public StudioColumn column(int x, int z) {
+            return columns[z << 4 | x];
+        }
+
+        public boolean isWall(int x, int z) {
+            int i = z << 4 | x;
+            return (walls[i >> 6] & 1L << i) != 0;
+        }
+
+        public boolean isDoorway(int x, int z) {
+            int i = z << 4 | x;
+            return (doorways[i >> 6] & 1L << i) != 0;
+        }
+
+        public boolean isLamp(int x, int z) {
+            int i = z << 4 | x;
+            return (lamps[i >> 6] & 1L << i) != 0;
+        }
+    }
+
+    private record Key(Style style, int roomSize) {
+    }
+}
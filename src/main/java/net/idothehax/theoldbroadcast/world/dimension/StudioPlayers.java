@@ -0,0 +1,223 @@
+package net.idothehax.theoldbroadcast.world.dimension;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.idothehax.theoldbroadcast.Theoldbroadcast;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The players in the studio, hashed into 16-block cells once at the start of every tick, for
+ * ghosts, spawning and block effects to share instead of each scanning every player. Queries see
+ * positions as of the start of the tick.
+ * <p>
+ * One grid is kept for the server's studio level and one for the client's, when the client is in
+ * the studio; they are only touched from their own side's thread. Anywhere else, queries fall
+ * back to the level's own player search.
+ */
+@Mod.EventBusSubscriber(modid = Theoldbroadcast.MODID)
+public final class StudioPlayers {
+    private static final Grid SERVER = new Grid();
+    private static final Grid CLIENT = new Grid();
+
+    private StudioPlayers() {
+    }
+
+    /**
+     * The nearest player that is not a spectator, less than {@code radius} from the position,
+     * the way {@link Level#getNearestPlayer(double, double, double, double, boolean)} finds one.
+     */
+    public static Player nearest(Level level, double x, double y, double z, double radius) {
+        Grid grid = grid(level);
+        return grid != null ? grid.nearest(x, y, z, radius) : level.getNearestPlayer(x, y, z, radius, false);
+    }
+
+    /**
+     * Adds the players less than {@code radius} from the position, spectators excluded, to
+     * {@code out}.
+     */
+    public static void within(Level level, double x, double y, double z, double radius, List<Player> out) {
+        Grid grid = grid(level);
+        if (grid != null) {
+            grid.within(x, y, z, radius, out);
+            return;
+        }
+        for (Player player : level.players()) {
+            if (!player.isSpectator() && player.distanceToSqr(x, y, z) < radius * radius) out.add(player);
+        }
+    }
+
+    /**
+     * Every player in the level, from this tick's grid when there is one.
+     */
+    public static List<? extends Player> players(Level level) {
+        Grid grid = grid(level);
+        return grid != null ? grid.view : level.players();
+    }
+
+    /**
+     * Rebuilds the client's grid, or drops it when the client is not in the studio.
+     */
+    public static void rebuildClient(Level level) {
+        if (level != null && level.dimension().equals(OldBroadcastDimensions.OLD_BROADCAST_LEVEL)) {
+            CLIENT.rebuild(level);
+        } else {
+            CLIENT.clear();
+        }
+    }
+
+    // Before the level ticks its entities
+    @SubscribeEvent
+    public static void onLevelTick(TickEvent.LevelTickEvent event) {
+        if (event.phase == TickEvent.Phase.START && event.level instanceof ServerLevel level
+                && level.dimension().equals(OldBroadcastDimensions.OLD_BROADCAST_LEVEL)) {
+            SERVER.rebuild(level);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        SERVER.clear();
+    }
+
+    private static Grid grid(Level level) {
+        if (SERVER.level == level) return SERVER;
+        if (CLIENT.level == level) return CLIENT;
+        return null;
+    }
+
+    private static final class Grid {
+        private static final int CELL_SHIFT = 4;
+
+        private Level level;
+        private final List<Player> players = new ArrayList<>();
+        private final List<Player> view = Collections.unmodifiableList(players);
+        // Players sorted by cell, with their cell and position at the start of the tick
+        private Player[] sorted = new Player[0];
+        private long[] cells = new long[0];
+        private double[] xs = new double[0];
+        private double[] ys = new double[0];
+        private double[] zs = new double[0];
+        private int size;
+        // Where each cell's run starts in the sorted arrays
+        private final Long2IntMap starts = new Long2IntOpenHashMap();
+
+        Grid() {
+            starts.defaultReturnValue(-1);
+        }
+
+        void rebuild(Level level) {
+            this.level = level;
+            players.clear();
+            players.addAll(level.players());
+            size = 0;
+            if (sorted.length < players.size()) {
+                int capacity = Math.max(players.size(), sorted.length * 2);
+                sorted = new Player[capacity];
+                cells = new long[capacity];
+                xs = new double[capacity];
+                ys = new double[capacity];
+                zs = new double[capacity];
+            }
+            for (Player player : players) {
+                if (player.isSpectator()) continue;
+                sorted[size] = player;
+                xs[size] = player.getX();
+                ys[size] = player.getY();
+                zs[size] = player.getZ();
+                cells[size] = SectionPos.asLong(Mth.floor(xs[size]) >> CELL_SHIFT, Mth.floor(ys[size]) >> CELL_SHIFT, Mth.floor(zs[size]) >> CELL_SHIFT);
+                size++;
+            }
+            it.unimi.dsi.fastutil.Arrays.quickSort(0, size, (a, b) -> Long.compare(cells[a], cells[b]), this::swap);
+            Arrays.fill(sorted, size, sorted.length, null);
+
+            starts.clear();
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || cells[i] != cells[i - 1]) starts.put(cells[i], i);
+            }
+        }
+
+        void clear() {
+            level = null;
+            players.clear();
+            Arrays.fill(sorted, null);
+            size = 0;
+            starts.clear();
+        }
+
+        Player nearest(double x, double y, double z, double radius) {
+            Player best = null;
+            double bestDistance = radius * radius;
+            for (int cz = Mth.floor(z - radius) >> CELL_SHIFT; cz <= Mth.floor(z + radius) >> CELL_SHIFT; cz++) {
+                for (int cy = Mth.floor(y - radius) >> CELL_SHIFT; cy <= Mth.floor(y + radius) >> CELL_SHIFT; cy++) {
+                    for (int cx = Mth.floor(x - radius) >> CELL_SHIFT; cx <= Mth.floor(x + radius) >> CELL_SHIFT; cx++) {
+                        long cell = SectionPos.asLong(cx, cy, cz);
+                        int start = starts.get(cell);
+                        if (start < 0) continue;
+                        for (int i = start; i < size && cells[i] == cell; i++) {
+                            double distance = distanceSqr(i, x, y, z);
+                            if (distance < bestDistance && !sorted[i].isRemoved()) {
+                                bestDistance = distance;
+                                best = sorted[i];
+                            }
+                        }
+                    }
+                }
+            }
+            return best;
+        }
+
+        void within(double x, double y, double z, double radius, List<Player> out) {
+            double radiusSqr = radius * radius;
+            for (int cz = Mth.floor(z - radius) >> CELL_SHIFT; cz <= Mth.floor(z + radius) >> CELL_SHIFT; cz++) {
+                for (int cy = Mth.floor(y - radius) >> CELL_SHIFT; cy <= Mth.floor(y + radius) >> CELL_SHIFT; cy++) {
+                    for (int cx = Mth.floor(x - radius) >> CELL_SHIFT; cx <= Mth.floor(x + radius) >> CELL_SHIFT; cx++) {
+                        long cell = SectionPos.asLong(cx, cy, cz);
+                        int start = starts.get(cell);
+                        if (start < 0) continue;
+                        for (int i = start; i < size && cells[i] == cell; i++) {
+                            if (distanceSqr(i, x, y, z) < radiusSqr && !sorted[i].isRemoved()) out.add(sorted[i]);
+                        }
+                    }
+                }
+            }
+        }
+
+        private double distanceSqr(int i, double x, double y, double z) {
+            double dx = xs[i] - x;
+            double dy = ys[i] - y;
+            double dz = zs[i] - z;
+            return dx * dx + dy * dy + dz * dz;
+        }
+
+        private void swap(int a, int b) {
+            Player player = sorted[a];
+            sorted[a] = sorted[b];
+            sorted[b] = player;
+            long cell = cells[a];
+            cells[a] = cells[b];
+            cells[b] = cell;
+            double x = xs[a];
+            xs[a] = xs[b];
+            xs[b] = x;
+            double y = ys[a];
+            ys[a] = ys[b];
+            ys[b] = y;
+            double z = zs[a];
+            zs[a] = zs[b];
+            zs[b] = z;
+        }
+    }
+}
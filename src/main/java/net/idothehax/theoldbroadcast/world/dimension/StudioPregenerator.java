@@ -0,0 +1,214 @@
+package net.idothehax.theoldbroadcast.world.dimension;
+
+import com.mojang.datafixers.util.Either;
+import com.mojang.logging.LogUtils;
+import net.idothehax.theoldbroadcast.Config;
+import net.idothehax.theoldbroadcast.Theoldbroadcast;
+import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ChunkHolder;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.ChunkStatus;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Generates the studio ahead of time in a square spiral around the entrance. Runs on the server
+ * tick, keeps at most {@link Config#pregenMaxInFlight} chunks generating at once and holds off
+ * while the server is lagging. Progress lives in the dimension's saved data, so a run picks up
+ * where it left off after a restart. Chunks that fail to generate are counted and logged, and the
+ * run carries on past them.
+ */
+@Mod.EventBusSubscriber(modid = Theoldbroadcast.MODID)
+public class StudioPregenerator {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final String DATA_NAME = Theoldbroadcast.MODID + "_pregen";
+    private static final TicketType<ChunkPos> TICKET = TicketType.create(Theoldbroadcast.MODID + ":pregen", Comparator.comparingLong(ChunkPos::toLong));
+    private static final int REPORT_INTERVAL = 200;
+
+    private static final Deque<InFlight> IN_FLIGHT = new ArrayDeque<>();
+    private static boolean paused;
+    private static int ticksSinceReport;
+
+    /**
+     * Starts a new run covering every chunk within {@code radius} chunks of the entrance,
+     * replacing any run in progress. Refused unless studio chunks are saved in full: with any
+     * other {@link Config#studioStorage} the generated chunks are never written, so the run would
+     * only cost time.
+     */
+    public static boolean start(ServerLevel level, int radius) {
+        if (Config.studioStorage != Config.StudioStorage.FULL) return false;
+        State state = state(level);
+        state.radius = radius;
+        state.next = 0;
+        state.failed = 0;
+        state.running = true;
+        state.setDirty();
+        LOGGER.info("Pre-generating {} studio chunks around the entrance", state.total());
+        return true;
+    }
+
+    public static boolean stop(ServerLevel level) {
+        State state = state(level);
+        if (!state.running) return false;
+        state.running = false;
+        state.setDirty();
+        return true;
+    }
+
+    public static Status status(ServerLevel level) {
+        State state = state(level);
+        return new Status(state.running, paused, done(state), state.total(), state.failed, IN_FLIGHT.size());
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) return;
+        MinecraftServer server = event.getServer();
+        ServerLevel level = server.getLevel(OldBroadcastDimensions.OLD_BROADCAST_LEVEL);
+        if (level == null) return;
+
+        State state = state(level);
+        long doneBefore = done(state);
+
+        // Retire finished chunks first, so their tickets are gone before new ones go out
+        IN_FLIGHT.removeIf(chunk -> {
+            if (!chunk.future().isDone()) return false;
+            level.getChunkSource().removeRegionTicket(TICKET, chunk.pos(), 0, chunk.pos());
+            if (chunk.future().isCompletedExceptionally() || chunk.future().join().right().isPresent()) {
+                LOGGER.warn("Could not pre-generate studio chunk {}", chunk.pos());
+                state.failed++;
+                state.setDirty();
+            }
+            return true;
+        });
+
+        if (!state.running) {
+            if (done(state) != doneBefore) state.setDirty();
+            return;
+        }
+        // A run saved before the storage mode changed away from FULL
+        if (Config.studioStorage != Config.StudioStorage.FULL) {
+            state.running = false;
+            state.setDirty();
+            LOGGER.warn("Stopped pre-generating the studio: studioStorage is {}, so generated chunks are not saved", Config.studioStorage);
+            return;
+        }
+
+        paused = server.getAverageTickTime() > Config.pregenMaxMspt;
+        long total = state.total();
+        while (!paused && IN_FLIGHT.size() < Config.pregenMaxInFlight && state.next < total) {
+            ChunkPos pos = spiral(state.next);
+            level.getChunkSource().addRegionTicket(TICKET, pos, 0, pos);
+            IN_FLIGHT.add(new InFlight(state.next, pos, level.getChunkSource().getChunkFuture(pos.x, pos.z, ChunkStatus.FULL, true)));
+            state.next++;
+        }
+        // Only what is saved counts: the oldest unfinished chunk
+        if (done(state) != doneBefore) {
+            state.setDirty();
+        }
+
+        if (state.next >= total && IN_FLIGHT.isEmpty()) {
+            state.running = false;
+            state.setDirty();
+            LOGGER.info("Finished pre-generating {} studio chunks, {} failed", total, state.failed);
+            return;
+        }
+        if (++ticksSinceReport >= REPORT_INTERVAL) {
+            ticksSinceReport = 0;
+            LOGGER.info("Pre-generating the studio: {}/{} chunks, {} failed{}", done(state), total, state.failed, paused ? " (paused, server is lagging)" : "");
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        IN_FLIGHT.clear();
+        paused = false;
+        ticksSinceReport = 0;
+    }
+
+    private static State state(ServerLevel level) {
+        return level.getDataStorage().computeIfAbsent(State::load, State::new, DATA_NAME);
+    }
+
+    /**
+     * Chunks known to be generated: everything before the oldest one still in flight.
+     */
+    private static long done(State state) {
+        InFlight oldest = IN_FLIGHT.peekFirst();
+        return oldest != null ? Math.min(oldest.index(), state.next) : state.next;
+    }
+
+    /**
+     * The chunk at the given position along a square spiral out from the entrance chunk. Ring
+     * {@code k} holds the {@code 8k} chunks at Chebyshev distance {@code k}.
+     */
+    static ChunkPos spiral(long index) {
+        ChunkPos center = new ChunkPos(BlockPos.containing(OldBroadcastTeleporter.ENTRANCE));
+        if (index == 0) return center;
+        int ring = (int) Math.ceil((Math.sqrt(index + 1) - 1) / 2);
+        long offset = index - (long) (2 * ring - 1) * (2 * ring - 1);
+        int side = (int) (offset / (2L * ring));
+        int along = (int) (offset % (2L * ring));
+        return switch (side) {
+            case 0 -> new ChunkPos(center.x + ring, center.z - ring + 1 + along);
+            case 1 -> new ChunkPos(center.x + ring - 1 - along, center.z + ring);
+            case 2 -> new ChunkPos(center.x - ring, center.z + ring - 1 - along);
+            default -> new ChunkPos(center.x - ring + 1 + along, center.z - ring);
+        };
+    }
+
+    /**
+     * Progress of the current or last run. {@code done} counts every chunk the run is past,
+     * {@code failed} included.
+     */
+    public record Status(boolean running, boolean paused, long done, long total, long failed, int inFlight) {
+    }
+
+    private record InFlight(long index, ChunkPos pos, CompletableFuture<Either<ChunkAccess, ChunkHolder.ChunkLoadingFailure>> future) {
+    }
+
+    private static final class State extends SavedData {
+        private int radius;
+        private long next;
+        private long failed;
+        private boolean running;
+
+        static State load(CompoundTag tag) {
+            State state = new State();
+            state.radius = tag.getInt("Radius");
+            state.next = tag.getLong("Next");
+            state.failed = tag.getLong("Failed");
+            state.running = tag.getBoolean("Running");
+            return state;
+        }
+
+        long total() {
+            long side = 2L * radius + 1;
+            return side * side;
+        }
+
+        @Override
+        public CompoundTag save(CompoundTag tag) {
+            tag.putInt("Radius", radius);
+            // Resume from the oldest unfinished chunk; anything after it that did finish is just loaded again
+            tag.putLong("Next", done(this));
+            tag.putLong("Failed", failed);
+            tag.putBoolean("Running", running);
+            return tag;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package net.idothehax.theoldbroadcast.world.dimension;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.idothehax.theoldbroadcast.Theoldbroadcast;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.event.level.ChunkEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * Where in the studio the light is bright enough to recover sanity, kept as an index so the
+ * sanity update is a single lookup instead of a light engine query per player.
+ * <p>
+ * The dimension has no skylight, so light at a position is what the nearest sources emit less
+ * one per block of distance. A source of emission {@code e} makes every position within
+ * {@code e - }{@link #SAFE_LIGHT} blocks (by taxicab distance) safe; those positions are counted
+ * in a coverage map, so overlapping sources can come and go independently. Walls are not taken
+ * into account, which only matters for the few blocks of a bright source nearest a wall.
+ * <p>
+ * Sources are found when a chunk loads, with a palette check that skips the sections holding no
+ * light-emitting state (all of them, for a chunk as generated, whose lamps are unlit), and after
+ * that from block updates as players place and break blocks.
+ */
+@Mod.EventBusSubscriber(modid = Theoldbroadcast.MODID)
+public final class StudioSafeZones {
+    // Block light a position needs to count as safe
+    public static final int SAFE_LIGHT = 12;
+
+    // Per chunk, the sources bright enough to make a safe zone, by position
+    private static final Long2ObjectMap<Long2IntMap> SOURCES = new Long2ObjectOpenHashMap<>();
+    // How many sources make each position safe
+    private static final Long2IntMap COVERAGE = new Long2IntOpenHashMap();
+
+    private StudioSafeZones() {
+    }
+
+    /**
+     * Whether a position in the studio is lit to at least {@link #SAFE_LIGHT}.
+     */
+    public static boolean isSafe(BlockPos pos) {
+        return COVERAGE.containsKey(pos.asLong());
+    }
+
+    // Runs after StudioDeltas has put back the chunk's changed blocks
+    @SubscribeEvent(priority = EventPriority.LOW)
+    public static void onChunkLoad(ChunkEvent.Load event) {
+        if (!(event.getChunk() instanceof LevelChunk chunk) || !isStudio(event.getLevel())) return;
+        ChunkPos chunkPos = chunk.getPos();
+        unload(chunkPos.toLong());
+
+        LevelChunkSection[] sections = chunk.getSections();
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        for (int s = 0; s < sections.length; s++) {
+            LevelChunkSection section = sections[s];
+            if (section.hasOnlyAir() || !section.getStates().maybeHas(StudioSafeZones::isBright)) continue;
+            int bottomY = chunk.getSectionYFromSectionIndex(s) << 4;
+            for (int i = 0; i < 4096; i++) {
+                int x = i & 15;
+                int y = i >> 8;
+                int z = i >> 4 & 15;
+                BlockState state = section.getBlockState(x, y, z);
+                if (!isBright(state)) continue;
+                pos.set(chunkPos.getBlockX(x), bottomY + y, chunkPos.getBlockZ(z));
+                setSource(pos, state.getLightEmission(chunk, pos));
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onChunkUnload(ChunkEvent.Unload event) {
+        if (event.getChunk() instanceof LevelChunk chunk && isStudio(event.getLevel())) {
+            unload(chunk.getPos().toLong());
+        }
+    }
+
+    // Placing and breaking both end in a block update at the changed position
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onNeighborNotify(BlockEvent.NeighborNotifyEvent event) {
+        refresh(event.getLevel(), event.getPos());
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onPlace(BlockEvent.EntityPlaceEvent event) {
+        if (!event.isCanceled()) refresh(event.getLevel(), event.getPos());
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        SOURCES.clear();
+        COVERAGE.clear();
+    }
+
+    private static void refresh(LevelAccessor level, BlockPos pos) {
+        if (!isStudio(level) || !level.hasChunkAt(pos)) return;
+        BlockState state = level.getBlockState(pos);
+        setSource(pos, state.getLightEmission(level, pos));
+    }
+
+    private static void setSource(BlockPos pos, int emission) {
+        long key = pos.asLong();
+        long chunkKey = ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+        Long2IntMap sources = SOURCES.get(chunkKey);
+        int previous = sources != null ? sources.get(key) : 0;
+        if (emission < SAFE_LIGHT) emission = 0;
+        if (emission == previous) return;
+
+        if (previous > 0) {
+            cover(key, previous, -1);
+            sources.remove(key);
+            if (sources.isEmpty()) SOURCES.remove(chunkKey);
+        }
+        if (emission > 0) {
+            SOURCES.computeIfAbsent(chunkKey, k -> new Long2IntOpenHashMap()).put(key, emission);
+            cover(key, emission, 1);
+        }
+    }
+
+    private static void unload(long chunkKey) {
+        Long2IntMap sources = SOURCES.remove(chunkKey);
+        if (sources == null) return;
+        for (Long2IntMap.Entry source : sources.long2IntEntrySet()) {
+            cover(source.getLongKey(), source.getIntValue(), -1);
+        }
+    }
+
+    // Adds or takes away one source's diamond of safe positions
+    private static void cover(long source, int emission, int delta) {
+        int radius = emission - SAFE_LIGHT;
+        int sx = BlockPos.getX(source);
+        int sy = BlockPos.getY(source);
+        int sz = BlockPos.getZ(source);
+        for (int dy = -radius; dy <= radius; dy++) {
+            int left = radius - Math.abs(dy);
+            for (int dz = -left; dz <= left; dz++) {
+                int reach = left - Math.abs(dz);
+                for (int dx = -reach; dx <= reach; dx++) {
+                    long key = BlockPos.asLong(sx + dx, sy + dy, sz + dz);
+                    int count = COVERAGE.get(key) + delta;
+                    if (count > 0) {
+                        COVERAGE.put(key, count);
+                    } else {
+                        COVERAGE.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isBright(BlockState state) {
+        return state.getLightEmission() >= SAFE_LIGHT;
+    }
+
+    private static boolean isStudio(LevelAccessor level) {
+        return level instanceof ServerLevel serverLevel && serverLevel.dimension().equals(OldBroadcastDimensions.OLD_BROADCAST_LEVEL);
+    }
+}
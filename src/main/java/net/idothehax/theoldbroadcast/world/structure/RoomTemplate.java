@@ -0,0 +1,298 @@
+package net.idothehax.theoldbroadcast.world.structure;
+
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.datafixers.util.Either;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.DataResult;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import net.idothehax.theoldbroadcast.world.structure.StudioStructure.RoomType;
+import net.minecraft.commands.arguments.blocks.BlockStateParser;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.util.ExtraCodecs;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.WorldGenLevel;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.structure.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A room decoration loaded from {@code data/<namespace>/studio_rooms/*.json}. Positions are given
+ * relative to the room: non-negative values count from the room's minimum edge, negative values
+ * back from its maximum edge ({@code -1} is the last column), and {@code "center"}, optionally
+ * with an offset such as {@code "center+1"}, from its middle. Y counts up from the story's floor.
+ * <p>
+ * Rooms come in many sizes, so a template is compiled once per room footprint into flat arrays
+ * sorted by position. Placing it in a chunk only walks the run of those arrays that falls inside
+ * the chunk.
+ */
+public final class RoomTemplate {
+    private static final Codec<BlockState> STATE_CODEC = Codec.STRING.comapFlatMap(RoomTemplate::parseState, BlockStateParser::serialize);
+
+    public static final Codec<RoomTemplate> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            RoomType.CODEC.listOf().fieldOf("room_types").forGetter(RoomTemplate::roomTypes),
+            ExtraCodecs.POSITIVE_INT.optionalFieldOf("weight", 1).forGetter(RoomTemplate::weight),
+            Fill.CODEC.listOf().optionalFieldOf("blocks", List.of()).forGetter(template -> template.fills),
+            Scatter.CODEC.listOf().optionalFieldOf("scatter", List.of()).forGetter(template -> template.scatters)
+    ).apply(instance, RoomTemplate::new));
+
+    private final List<RoomType> roomTypes;
+    private final int weight;
+    private final List<Fill> fills;
+    private final List<Scatter> scatters;
+    // Compiled placements per room footprint
+    private final Map<Long, Compiled> compiled = new ConcurrentHashMap<>();
+
+    public RoomTemplate(List<RoomType> roomTypes, int weight, List<Fill> fills, List<Scatter> scatters) {
+        this.roomTypes = List.copyOf(roomTypes);
+        this.weight = weight;
+        this.fills = List.copyOf(fills);
+        this.scatters = List.copyOf(scatters);
+    }
+
+    public List<RoomType> roomTypes() {
+        return roomTypes;
+    }
+
+    public int weight() {
+        return weight;
+    }
+
+    /**
+     * Places the template into the room, skipping anything outside {@code clip}. The seed decides
+     * every random roll, so placing the same room chunk by chunk gives the same result as placing
+     * it in one go.
+     */
+    public void place(WorldGenLevel level, BoundingBox room, BoundingBox clip, long seed) {
+        forEach(room, clip, seed, (pos, state) -> level.setBlock(pos, state, 2));
+    }
+
+    /**
+     * Visits every block the template would place in the room within {@code clip}, without
+     * touching the world. The position passed to the consumer is reused between calls.
+     */
+    public void forEach(BoundingBox room, BoundingBox clip, long seed, BiConsumer<BlockPos, BlockState> consumer) {
+        Compiled placements = compiled(room.getXSpan(), room.getYSpan(), room.getZSpan());
+        int[] positions = placements.positions();
+        int fromX = clip.minX() - room.minX();
+        int toX = clip.maxX() - room.minX();
+        int fromZ = clip.minZ() - room.minZ();
+        int toZ = clip.maxZ() - room.minZ();
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+        // Positions are sorted by x first, so the chunk's columns form one contiguous run
+        for (int i = firstAtOrAfter(positions, Math.max(fromX, 0) << 16); i < positions.length; i++) {
+            int packed = positions[i];
+            int x = packed >>> 16;
+            if (x > toX) break;
+            int z = packed >>> 8 & 0xFF;
+            if (z < fromZ || z > toZ) continue;
+            float chance = placements.chances()[i];
+            if (chance < 1.0F && roll(seed, i) >= chance) continue;
+            pos.set(room.minX() + x, room.minY() + (packed & 0xFF), room.minZ() + z);
+            if (clip.isInside(pos)) {
+                consumer.accept(pos, placements.states()[i]);
+            }
+        }
+
+        // Scattered props roll their positions per room, always drawing the same numbers
+        RandomSource random = RandomSource.create(seed);
+        for (Scatter scatter : scatters) {
+            int spanX = room.getXSpan() - 2 * scatter.margin();
+            int spanZ = room.getZSpan() - 2 * scatter.margin();
+            if (spanX <= 0 || spanZ <= 0) continue;
+            for (int n = 0; n < scatter.count(); n++) {
+                int x = room.minX() + scatter.margin() + random.nextInt(spanX);
+                int z = room.minZ() + scatter.margin() + random.nextInt(spanZ);
+                boolean stacked = scatter.stackChance() > 0.0F && random.nextFloat() < scatter.stackChance();
+                for (int y = 0; y <= (stacked ? 1 : 0); y++) {
+                    pos.set(x, room.minY() + scatter.y() + y, z);
+                    if (clip.isInside(pos)) {
+                        consumer.accept(pos, scatter.state());
+                    }
+                }
+            }
+        }
+    }
+
+    private Compiled compiled(int spanX, int spanY, int spanZ) {
+        return compiled.computeIfAbsent((long) spanX << 32 | (long) spanY << 16 | spanZ, key -> compile(spanX, spanY, spanZ));
+    }
+
+    private Compiled compile(int spanX, int spanY, int spanZ) {
+        IntArrayList keys = new IntArrayList();
+        List<BlockState> states = new ArrayList<>();
+        FloatArrayList chances = new FloatArrayList();
+        for (Fill fill : fills) {
+            for (int x = fill.x().from(spanX); x <= fill.x().to(spanX); x += fill.x().step()) {
+                if (x < 0 || x >= spanX) continue;
+                for (int z = fill.z().from(spanZ); z <= fill.z().to(spanZ); z += fill.z().step()) {
+                    if (z < 0 || z >= spanZ) continue;
+                    for (int y = fill.y().from(spanY); y <= fill.y().to(spanY); y += fill.y().step()) {
+                        if (y < 0 || y >= spanY) continue;
+                        // Rooms are far narrower than 256 blocks, so one int holds the whole position
+                        keys.add(x << 16 | z << 8 | y);
+                        states.add(fill.state());
+                        chances.add(fill.chance());
+                    }
+                }
+            }
+        }
+
+        // Stable sort, so where blocks overlap the one listed later in the file still wins
+        int[] order = new int[keys.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        IntArrays.mergeSort(order, (a, b) -> Integer.compare(keys.getInt(a), keys.getInt(b)));
+
+        int[] positions = new int[order.length];
+        BlockState[] sortedStates = new BlockState[order.length];
+        float[] sortedChances = new float[order.length];
+        for (int i = 0; i < order.length; i++) {
+            positions[i] = keys.getInt(order[i]);
+            sortedStates[i] = states.get(order[i]);
+            sortedChances[i] = chances.getFloat(order[i]);
+        }
+        return new Compiled(positions, sortedStates, sortedChances);
+    }
+
+    private static int firstAtOrAfter(int[] positions, int key) {
+        int low = 0;
+        int high = positions.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (positions[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static float roll(long seed, int index) {
+        return (HashCommon.mix(seed + index * 0x9E3779B97F4A7C15L) >>> 40) * 0x1.0p-24F;
+    }
+
+    private static DataResult<BlockState> parseState(String value) {
+        try {
+            return DataResult.success(BlockStateParser.parseForBlock(BuiltInRegistries.BLOCK.asLookup(), value, false).blockState());
+        } catch (CommandSyntaxException e) {
+            return DataResult.error(() -> "Invalid block state '" + value + "': " + e.getMessage());
+        }
+    }
+
+    private record Compiled(int[] positions, BlockState[] states, float[] chances) {
+    }
+
+    /**
+     * One coordinate relative to a room edge or its middle.
+     */
+    public record Anchor(Origin origin, int offset) {
+        private static final Pattern CENTER = Pattern.compile("center([+-]\\d+)?");
+
+        public static final Codec<Anchor> CODEC = Codec.either(Codec.INT, Codec.STRING).comapFlatMap(
+                either -> either.map(value -> DataResult.success(of(value)), Anchor::parse),
+                anchor -> anchor.origin() == Origin.CENTER
+                        ? Either.right(anchor.offset() == 0 ? "center" : String.format("center%+d", anchor.offset()))
+                        : Either.left(anchor.offset()));
+
+        static Anchor of(int value) {
+            return new Anchor(value < 0 ? Origin.MAX : Origin.MIN, value);
+        }
+
+        private static DataResult<Anchor> parse(String value) {
+            Matcher matcher = CENTER.matcher(value);
+            if (!matcher.matches()) {
+                return DataResult.error(() -> "Expected a number or \"center\", got '" + value + "'");
+            }
+            return DataResult.success(new Anchor(Origin.CENTER, matcher.group(1) == null ? 0 : Integer.parseInt(matcher.group(1))));
+        }
+
+        int resolve(int span) {
+            return switch (origin) {
+                case MIN -> offset;
+                case MAX -> span + offset;
+                case CENTER -> (span - 1) / 2 + offset;
+            };
+        }
+
+        enum Origin {
+            MIN, MAX, CENTER
+        }
+    }
+
+    /**
+     * An inclusive run of coordinates along one axis: a single anchor, or {@code [from, to]} with
+     * an optional third step value.
+     */
+    public record Span(Anchor start, Anchor end, int step) {
+        public static final Codec<Span> CODEC = Codec.either(Anchor.CODEC, Anchor.CODEC.listOf()).comapFlatMap(
+                either -> either.map(anchor -> DataResult.success(new Span(anchor, anchor, 1)), Span::fromList),
+                span -> span.start().equals(span.end()) && span.step() == 1
+                        ? Either.left(span.start())
+                        : Either.right(List.of(span.start(), span.end(), Anchor.of(span.step()))));
+
+        private static DataResult<Span> fromList(List<Anchor> anchors) {
+            if (anchors.size() < 2 || anchors.size() > 3) {
+                return DataResult.error(() -> "Expected [from, to] or [from, to, step], got " + anchors.size() + " values");
+            }
+            int step = 1;
+            if (anchors.size() == 3) {
+                Anchor stepAnchor = anchors.get(2);
+                if (stepAnchor.origin() != Anchor.Origin.MIN || stepAnchor.offset() <= 0) {
+                    return DataResult.error(() -> "Step must be a positive number");
+                }
+                step = stepAnchor.offset();
+            }
+            return DataResult.success(new Span(anchors.get(0), anchors.get(1), step));
+        }
+
+        int from(int span) {
+            return start.resolve(span);
+        }
+
+        int to(int span) {
+            return end.resolve(span);
+        }
+    }
+
+    /**
+     * Fills every position in the box spanned by the three axes, each with the given chance.
+     */
+    public record Fill(BlockState state, Span x, Span y, Span z, float chance) {
+        public static final Codec<Fill> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+                STATE_CODEC.fieldOf("state").forGetter(Fill::state),
+                Span.CODEC.fieldOf("x").forGetter(Fill::x),
+                Span.CODEC.fieldOf("y").forGetter(Fill::y),
+                Span.CODEC.fieldOf("z").forGetter(Fill::z),
+                Codec.floatRange(0.0F, 1.0F).optionalFieldOf("chance", 1.0F).forGetter(Fill::chance)
+        ).apply(instance, Fill::new));
+    }
+
+    /**
+     * Drops {@code count} blocks at random positions at least {@code margin} blocks in from the
+     * walls, each stacked one block higher with the given chance.
+     */
+    public record Scatter(BlockState state, int count, int margin, int y, float stackChance) {
+        public static final Codec<Scatter> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+                STATE_CODEC.fieldOf("state").forGetter(Scatter::state),
+                ExtraCodecs.POSITIVE_INT.fieldOf("count").forGetter(Scatter::count),
+                ExtraCodecs.NON_NEGATIVE_INT.optionalFieldOf("margin", 1).forGetter(Scatter::margin),
+                ExtraCodecs.NON_NEGATIVE_INT.optionalFieldOf("y", 0).forGetter(Scatter::y),
+                Codec.floatRange(0.0F, 1.0F).optionalFieldOf("stack_chance", 0.0F).forGetter(Scatter::stackChance)
+        ).apply(instance, Scatter::new));
+    }
+}
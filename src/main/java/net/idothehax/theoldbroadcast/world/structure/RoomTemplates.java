@@ -0,0 +1,136 @@
+package net.idothehax.theoldbroadcast.world.structure;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.mojang.logging.LogUtils;
+import com.mojang.serialization.JsonOps;
+import it.unimi.dsi.fastutil.HashCommon;
+import net.idothehax.theoldbroadcast.Theoldbroadcast;
+import net.idothehax.theoldbroadcast.world.structure.StudioStructure.RoomType;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.ResourceManager;
+import net.minecraft.server.packs.resources.SimpleJsonResourceReloadListener;
+import net.minecraft.util.profiling.ProfilerFiller;
+import net.minecraftforge.event.AddReloadListenerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads room templates from {@code data/<namespace>/studio_rooms} and picks one per room. Templates
+ * whose JSON is unchanged since the last reload keep their compiled placements.
+ */
+@Mod.EventBusSubscriber(modid = Theoldbroadcast.MODID)
+public class RoomTemplates extends SimpleJsonResourceReloadListener {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final Gson GSON = new GsonBuilder().create();
+
+    private static volatile Map<RoomType, Pool> pools = Map.of();
+    // Last loaded JSON and template per file, for reuse across reloads
+    private static Map<ResourceLocation, Loaded> loaded = Map.of();
+    private static volatile int generation;
+
+    private RoomTemplates() {
+        super(GSON, "studio_rooms");
+    }
+
+    @SubscribeEvent
+    public static void onAddReloadListeners(AddReloadListenerEvent event) {
+        event.addListener(new RoomTemplates());
+    }
+
+    /**
+     * Picks a template for a room by weight, or returns null if none is declared for its type.
+     */
+    public static RoomTemplate pick(RoomType roomType, long seed) {
+        Pool pool = pools.get(roomType);
+        return pool == null ? null : pool.pick(seed);
+    }
+
+    /**
+     * Counts template reloads, so anything derived from the templates can tell when to redo it.
+     */
+    public static int generation() {
+        return generation;
+    }
+
+    @Override
+    protected void apply(Map<ResourceLocation, JsonElement> files, ResourceManager resourceManager, ProfilerFiller profiler) {
+        load(files);
+    }
+
+    /**
+     * Replaces the loaded templates with the given files, keyed by template id. Normally called
+     * by the reload listener; also usable directly where there is no resource manager.
+     */
+    public static synchronized void load(Map<ResourceLocation, JsonElement> files) {
+        Map<ResourceLocation, Loaded> next = new HashMap<>();
+        int reused = 0;
+        for (Map.Entry<ResourceLocation, JsonElement> file : files.entrySet()) {
+            Loaded previous = loaded.get(file.getKey());
+            if (previous != null && previous.json().equals(file.getValue())) {
+                next.put(file.getKey(), previous);
+                reused++;
+                continue;
+            }
+            RoomTemplate.CODEC.parse(JsonOps.INSTANCE, file.getValue())
+                    .resultOrPartial(error -> LOGGER.error("Skipping studio room {}: {}", file.getKey(), error))
+                    .ifPresent(template -> next.put(file.getKey(), new Loaded(file.getValue(), template)));
+        }
+
+        Map<RoomType, List<RoomTemplate>> byType = new EnumMap<>(RoomType.class);
+        // Sorted so the same files always give the same picks
+        next.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> entry.getValue().template().roomTypes()
+                        .forEach(type -> byType.computeIfAbsent(type, key -> new ArrayList<>()).add(entry.getValue().template())));
+
+        Map<RoomType, Pool> nextPools = new EnumMap<>(RoomType.class);
+        byType.forEach((type, templates) -> nextPools.put(type, new Pool(templates)));
+        loaded = next;
+        pools = nextPools;
+        generation++;
+        LOGGER.info("Loaded {} studio room templates ({} unchanged)", next.size(), reused);
+    }
+
+    private record Loaded(JsonElement json, RoomTemplate template) {
+    }
+
+    private static final class Pool {
+        private final RoomTemplate[] templates;
+        // Running total of weights, for a binary search on the roll
+        private final int[] cumulative;
+
+        Pool(List<RoomTemplate> templates) {
+            this.templates = templates.toArray(new RoomTemplate[0]);
+            this.cumulative = new int[this.templates.length];
+            int total = 0;
+            for (int i = 0; i < this.templates.length; i++) {
+                total += this.templates[i].weight();
+                cumulative[i] = total;
+            }
+        }
+
+        RoomTemplate pick(long seed) {
+            int roll = (int) Math.floorMod(HashCommon.mix(seed), (long) cumulative[cumulative.length - 1]);
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] <= roll) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return templates[low];
+        }
+    }
+}
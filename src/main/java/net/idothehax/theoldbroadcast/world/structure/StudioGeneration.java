@@ -0,0 +1,76 @@
+package net.idothehax.theoldbroadcast.world.structure;
+
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.idothehax.theoldbroadcast.world.dimension.OldBroadcastChunkGenerator;
+import net.idothehax.theoldbroadcast.world.dimension.StudioFloorplan;
+import net.idothehax.theoldbroadcast.world.dimension.StudioFloorplans;
+import net.idothehax.theoldbroadcast.world.structure.StudioStructure.StudioRoomPiece;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.chunk.UpgradeData;
+import net.minecraft.world.level.levelgen.RandomState;
+import net.minecraft.world.level.levelgen.blending.Blender;
+import net.minecraft.world.level.levelgen.structure.BoundingBox;
+
+/**
+ * Generates a studio chunk's blocks off to the side: the generator's {@code fillFromNoise}, then
+ * every {@link StudioStructure} piece reaching into the chunk, found and decorated by the same
+ * code the structure start and its pieces run. This is the one copy of that sequence, for
+ * whatever needs a chunk's generated blocks outside worldgen.
+ * <p>
+ * Blocks are written straight into a detached chunk, so the steps that need a live level are
+ * left out: the chunk's post-processing and any shape updates against its neighbours. Blocks that
+ * take their shape from their neighbours, like panes or stairs, can come out in a different shape
+ * than in the world. Callers comparing against the world have to allow for that. Safe to call off
+ * the server thread.
+ */
+public final class StudioGeneration {
+    private StudioGeneration() {
+    }
+
+    /**
+     * The chunk as the level's generator produces it, or null outside the studio generator.
+     */
+    public static ProtoChunk generate(ServerLevel level, ChunkPos pos) {
+        if (!(level.getChunkSource().getGenerator() instanceof OldBroadcastChunkGenerator generator)) {
+            return null;
+        }
+        return generate(generator, level.getChunkSource().randomState(), level, level.registryAccess().registryOrThrow(Registries.BIOME), pos);
+    }
+
+    public static ProtoChunk generate(OldBroadcastChunkGenerator generator, RandomState randomState, LevelHeightAccessor heightAccessor, Registry<Biome> biomes, ChunkPos pos) {
+        ProtoChunk chunk = new ProtoChunk(pos, UpgradeData.EMPTY, heightAccessor, biomes, null);
+        // Run on the calling thread; this generator never reads the structure manager
+        generator.fillFromNoise(Runnable::run, Blender.empty(), randomState, null, chunk).join();
+
+        // The starts whose pieces can reach this chunk are those of the rooms overlapping it
+        StudioFloorplans plans = generator.floorplans(randomState);
+        StudioFloorplan plan = plans.forChunk(pos.x, pos.z);
+        LongSet starts = new LongLinkedOpenHashSet();
+        for (int id : plan.roomsInChunk(pos.x, pos.z)) {
+            StudioFloorplan.Room room = plan.room(id);
+            starts.add(ChunkPos.asLong(room.minX() >> 4, room.minZ() >> 4));
+        }
+
+        // The area a chunk's structure pieces may write to during decoration
+        BoundingBox writable = new BoundingBox(pos.getMinBlockX(), heightAccessor.getMinBuildHeight() + 1, pos.getMinBlockZ(),
+                pos.getMaxBlockX(), heightAccessor.getMaxBuildHeight() - 1, pos.getMaxBlockZ());
+        for (long start : starts) {
+            ChunkPos startPos = new ChunkPos(start);
+            StudioStructure.forEachPiece(plans.forChunk(startPos.x, startPos.z), startPos, heightAccessor, (room, story) -> {
+                BoundingBox roomBox = StudioRoomPiece.roomBox(room, story);
+                if (roomBox.intersects(writable)) {
+                    StudioRoomPiece.decorate(room.type(story), StudioRoomPiece.seed(room, story), roomBox, writable,
+                            (blockPos, state) -> chunk.setBlockState(blockPos, state, false));
+                }
+            });
+        }
+        return chunk;
+    }
+}
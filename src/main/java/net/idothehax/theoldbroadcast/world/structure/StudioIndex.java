@@ -0,0 +1,128 @@
+package net.idothehax.theoldbroadcast.world.structure;
+
+import net.idothehax.theoldbroadcast.Theoldbroadcast;
+import net.idothehax.theoldbroadcast.world.dimension.OldBroadcastChunkGenerator;
+import net.idothehax.theoldbroadcast.world.dimension.StudioColumn;
+import net.idothehax.theoldbroadcast.world.dimension.StudioFloorplan;
+import net.idothehax.theoldbroadcast.world.dimension.StudioFloorplans;
+import net.idothehax.theoldbroadcast.world.structure.StudioStructure.RoomType;
+import net.idothehax.theoldbroadcast.world.structure.StudioStructure.StudioRoomPiece;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.levelgen.structure.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Answers where rooms and VHS tapes are in the studio straight from the seed, without loading
+ * or generating a single chunk. Rooms come from the region floorplans and tapes from running the
+ * room templates the same way {@link StudioRoomPiece} does, so the answers match what generation
+ * places as long as the loaded templates are the ones the chunks were generated with.
+ */
+public final class StudioIndex {
+    // How many regions out from the start the room search goes before giving up
+    private static final int MAX_SEARCH_RINGS = 4;
+
+    private StudioIndex() {
+    }
+
+    /**
+     * The room of the given type whose center is closest to {@code origin}, on any story.
+     */
+    public static Optional<RoomMatch> nearestRoom(ServerLevel level, RoomType type, BlockPos origin) {
+        StudioFloorplans plans = floorplans(level);
+        if (plans == null) return Optional.empty();
+        int floors = floors(level, plans);
+        int originRegionX = origin.getX() >> StudioFloorplan.REGION_SHIFT;
+        int originRegionZ = origin.getZ() >> StudioFloorplan.REGION_SHIFT;
+
+        RoomMatch best = null;
+        long bestDistance = Long.MAX_VALUE;
+        for (int ring = 0; ring <= MAX_SEARCH_RINGS; ring++) {
+            // Nothing in this ring can beat a match closer than the ring's inner edge
+            long ringDistance = (long) Math.max(0, ring - 1) * StudioFloorplan.REGION_SIZE;
+            if (best != null && ringDistance * ringDistance > bestDistance) break;
+
+            for (int rz = originRegionZ - ring; rz <= originRegionZ + ring; rz++) {
+                for (int rx = originRegionX - ring; rx <= originRegionX + ring; rx++) {
+                    if (Math.max(Math.abs(rx - originRegionX), Math.abs(rz - originRegionZ)) != ring) continue;
+                    for (StudioFloorplan.Room room : plans.peek(rx, rz).rooms()) {
+                        for (int story = 0; story < floors; story++) {
+                            if (room.type(story) != type) continue;
+                            BlockPos center = new BlockPos(room.centerX(), StudioColumn.storyBottom(story) + 1, room.centerZ());
+                            long distance = (long) center.distSqr(origin);
+                            if (distance < bestDistance) {
+                                bestDistance = distance;
+                                best = new RoomMatch(room, story, center);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    /**
+     * Every VHS tape generation places within {@code radius} blocks horizontally of
+     * {@code center}, on every story.
+     */
+    public static List<BlockPos> tapesWithin(ServerLevel level, BlockPos center, int radius) {
+        List<BlockPos> tapes = new ArrayList<>();
+        StudioFloorplans plans = floorplans(level);
+        if (plans == null) return tapes;
+        int floors = floors(level, plans);
+        BoundingBox area = new BoundingBox(center.getX() - radius, level.getMinBuildHeight(), center.getZ() - radius,
+                center.getX() + radius, level.getMaxBuildHeight(), center.getZ() + radius);
+        long radiusSqr = (long) radius * radius;
+
+        for (int rz = area.minZ() >> StudioFloorplan.REGION_SHIFT; rz <= area.maxZ() >> StudioFloorplan.REGION_SHIFT; rz++) {
+            for (int rx = area.minX() >> StudioFloorplan.REGION_SHIFT; rx <= area.maxX() >> StudioFloorplan.REGION_SHIFT; rx++) {
+                for (StudioFloorplan.Room room : plans.peek(rx, rz).rooms()) {
+                    if (room.maxX() < area.minX() || room.minX() > area.maxX() || room.maxZ() < area.minZ() || room.minZ() > area.maxZ()) continue;
+                    for (int story = 0; story < floors; story++) {
+                        StudioRoomPiece.decorate(room.type(story), StudioRoomPiece.seed(room, story), StudioRoomPiece.roomBox(room, story), area, (pos, state) -> {
+                            long dx = pos.getX() - center.getX();
+                            long dz = pos.getZ() - center.getZ();
+                            if (state.is(Theoldbroadcast.VHS_TAPE_BLOCK.get()) && dx * dx + dz * dz <= radiusSqr) {
+                                tapes.add(pos.immutable());
+                            }
+                        });
+                    }
+                }
+            }
+        }
+        return tapes;
+    }
+
+    /**
+     * The room whose floor holds the given column, or null in walls and doorways and outside
+     * the studio generator.
+     */
+    public static StudioFloorplan.Room roomAt(ServerLevel level, int blockX, int blockZ) {
+        StudioFloorplans plans = floorplans(level);
+        return plans == null ? null : plans.forBlock(blockX, blockZ).roomAt(blockX, blockZ);
+    }
+
+    static StudioFloorplans floorplans(ServerLevel level) {
+        if (level.getChunkSource().getGenerator() instanceof OldBroadcastChunkGenerator generator) {
+            return generator.floorplans(level.getChunkSource().randomState());
+        }
+        return null;
+    }
+
+    private static int floors(ServerLevel level, StudioFloorplans plans) {
+        return Math.min(plans.floors(), StudioColumn.maxFloors(level.getMaxBuildHeight()));
+    }
+
+    /**
+     * A room on one story, with the block at the middle of its floor.
+     */
+    public record RoomMatch(StudioFloorplan.Room room, int story, BlockPos center) {
+        public RoomType type() {
+            return room.type(story);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package net.idothehax.theoldbroadcast.world.structure;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.idothehax.theoldbroadcast.Config;
+import net.idothehax.theoldbroadcast.Theoldbroadcast;
+import net.idothehax.theoldbroadcast.world.dimension.OldBroadcastTeleporter;
+import net.idothehax.theoldbroadcast.world.dimension.StudioColumn;
+import net.idothehax.theoldbroadcast.world.dimension.StudioFloorplan;
+import net.idothehax.theoldbroadcast.world.dimension.StudioFloorplans;
+import net.idothehax.theoldbroadcast.world.structure.StudioStructure.RoomType;
+import net.idothehax.theoldbroadcast.world.structure.StudioStructure.StudioRoomPiece;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.levelgen.structure.BoundingBox;
+import net.minecraft.world.phys.Vec3;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spreads arrivals in the studio over the ground-story rooms around the entrance, instead of
+ * landing everyone on the same block. Each room gets one spawn spot, worked out from the
+ * floorplan and the room's template alone, never by looking at blocks, and cached per region.
+ * Rooms are then drawn at random, weighted against the players already in them and the
+ * arrivals recently sent there, so a crowd ends up in different rooms and chunks.
+ */
+@Mod.EventBusSubscriber(modid = Theoldbroadcast.MODID)
+public final class StudioSpawns {
+    // How far from a room's center a spawn spot may be moved to get clear of props
+    private static final int MAX_SPOT_OFFSET = 3;
+    // How long an arrival counts towards its room before it is expected to show up in it
+    private static final int RESERVATION_TICKS = 600;
+
+    private static final Long2ObjectMap<RegionSpots> SPOTS = new Long2ObjectOpenHashMap<>();
+
+    private StudioSpawns() {
+    }
+
+    /**
+     * Picks where the next arrival lands, or the fixed entrance when the studio has no rooms to
+     * offer.
+     */
+    public static Vec3 allocate(ServerLevel level) {
+        StudioFloorplans plans = StudioIndex.floorplans(level);
+        if (plans == null) return OldBroadcastTeleporter.ENTRANCE;
+
+        List<Spot> spots = new ArrayList<>();
+        BlockPos entrance = BlockPos.containing(OldBroadcastTeleporter.ENTRANCE);
+        int centerRegionX = entrance.getX() >> StudioFloorplan.REGION_SHIFT;
+        int centerRegionZ = entrance.getZ() >> StudioFloorplan.REGION_SHIFT;
+        int radius = Config.studioSpawnRegionRadius;
+        for (int rz = centerRegionZ - radius; rz <= centerRegionZ + radius; rz++) {
+            for (int rx = centerRegionX - radius; rx <= centerRegionX + radius; rx++) {
+                spots.addAll(spots(plans, rx, rz).spots());
+            }
+        }
+        if (spots.isEmpty()) return OldBroadcastTeleporter.ENTRANCE;
+
+        int tick = level.getServer().getTickCount();
+        int[] load = new int[spots.size()];
+        for (int i = 0; i < spots.size(); i++) {
+            load[i] = spots.get(i).reservations(tick);
+        }
+        for (ServerPlayer player : level.players()) {
+            if (player.getBlockY() >= StudioColumn.storyBottom(1)) continue;
+            StudioFloorplan.Room room = plans.forBlock(player.getBlockX(), player.getBlockZ()).roomAt(player.getBlockX(), player.getBlockZ());
+            if (room == null) continue;
+            for (int i = 0; i < spots.size(); i++) {
+                // Compared by corner, since the plan may have been rebuilt since the spots were cached
+                StudioFloorplan.Room spotRoom = spots.get(i).room();
+                if (spotRoom.minX() == room.minX() && spotRoom.minZ() == room.minZ()) load[i]++;
+            }
+        }
+
+        double total = 0;
+        double[] weights = new double[spots.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = 1.0 / (1 + load[i] * load[i]);
+            total += weights[i];
+        }
+        double roll = level.getRandom().nextDouble() * total;
+        int chosen = weights.length - 1;
+        for (int i = 0; i < weights.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                chosen = i;
+                break;
+            }
+        }
+
+        Spot spot = spots.get(chosen);
+        spot.reserve(tick);
+        return Vec3.atBottomCenterOf(spot.pos());
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        SPOTS.clear();
+    }
+
+    private static RegionSpots spots(StudioFloorplans plans, int regionX, int regionZ) {
+        long key = ChunkPos.asLong(regionX, regionZ);
+        RegionSpots cached = SPOTS.get(key);
+        if (cached == null || cached.templates() != RoomTemplates.generation()) {
+            cached = new RegionSpots(RoomTemplates.generation(), findSpots(plans.peek(regionX, regionZ)));
+            SPOTS.put(key, cached);
+        }
+        return cached;
+    }
+
+    private static List<Spot> findSpots(StudioFloorplan plan) {
+        List<Spot> spots = new ArrayList<>();
+        for (StudioFloorplan.Room room : plan.rooms()) {
+            if (room.type(0) == RoomType.STAIRWELL) continue;
+            BlockPos pos = findSpot(plan, room);
+            if (pos != null) {
+                spots.add(new Spot(room, pos, new IntArrayList()));
+            }
+        }
+        return spots;
+    }
+
+    /**
+     * The open floor column closest to the room's center, checking rings further out until
+     * {@link #MAX_SPOT_OFFSET}.
+     */
+    private static BlockPos findSpot(StudioFloorplan plan, StudioFloorplan.Room room) {
+        BoundingBox box = StudioRoomPiece.roomBox(room, 0);
+        long seed = StudioRoomPiece.seed(room, 0);
+        RoomTemplate template = RoomTemplates.pick(room.type(0), seed);
+        for (int ring = 0; ring <= MAX_SPOT_OFFSET; ring++) {
+            for (int dz = -ring; dz <= ring; dz++) {
+                for (int dx = -ring; dx <= ring; dx++) {
+                    if (Math.max(Math.abs(dx), Math.abs(dz)) != ring) continue;
+                    int x = room.centerX() + dx;
+                    int z = room.centerZ() + dz;
+                    if (room.contains(x, z) && isOpen(plan, template, box, seed, x, z)) {
+                        return new BlockPos(x, box.minY(), z);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    // Bare floor with nothing from the room's template where the player's feet and head go
+    private static boolean isOpen(StudioFloorplan plan, RoomTemplate template, BoundingBox room, long seed, int x, int z) {
+        if (plan.columnAt(x, z) == StudioColumn.WALL || plan.columnAt(x, z) == StudioColumn.LADDER) return false;
+        for (StudioFloorplan.StairRun run : plan.stairs()) {
+            if (run.z() == z && x >= run.startX() && x < run.startX() + StudioFloorplan.STAIR_LENGTH) return false;
+        }
+        if (template == null) return true;
+        boolean[] blocked = new boolean[1];
+        template.forEach(room, new BoundingBox(x, room.minY(), z, x, room.minY() + 1, z), seed, (pos, state) -> blocked[0] = true);
+        return !blocked[0];
+    }
+
+    private record RegionSpots(int templates, List<Spot> spots) {
+    }
+
+    private record Spot(StudioFloorplan.Room room, BlockPos pos, IntArrayList reservedAt) {
+        int reservations(int tick) {
+            reservedAt.removeIf((int reserved) -> tick - reserved > RESERVATION_TICKS);
+            return reservedAt.size();
+        }
+
+        void reserve(int tick) {
+            reservedAt.add(tick);
+        }
+    }
+}
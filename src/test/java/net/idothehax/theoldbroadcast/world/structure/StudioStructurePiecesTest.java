@@ -0,0 +1,116 @@
+package net.idothehax.theoldbroadcast.world.structure;
+
+import com.mojang.serialization.Lifecycle;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.idothehax.theoldbroadcast.world.dimension.OldBroadcastBiomeSource;
+import net.idothehax.theoldbroadcast.world.dimension.OldBroadcastChunkGenerator;
+import net.idothehax.theoldbroadcast.world.dimension.StudioColumn;
+import net.idothehax.theoldbroadcast.world.dimension.StudioFloorplan;
+import net.idothehax.theoldbroadcast.world.dimension.StudioFloorplans;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.HolderGetter;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.data.registries.VanillaRegistries;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.BiomeGenerationSettings;
+import net.minecraft.world.level.biome.BiomeSpecialEffects;
+import net.minecraft.world.level.biome.Biomes;
+import net.minecraft.world.level.biome.MobSpawnSettings;
+import net.minecraft.world.level.levelgen.NoiseGeneratorSettings;
+import net.minecraft.world.level.levelgen.RandomState;
+import net.minecraft.world.level.levelgen.synth.NormalNoise;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Every studio room gets exactly one structure piece per story, from the chunk holding its
+ * minimum corner, so overlapping starts never decorate a room twice and no room is left bare.
+ * <p>
+ * Pieces are counted through {@link StudioStructure#forEachPiece}, which is what
+ * {@code findGenerationPoint} turns into room pieces; the pieces themselves need the mod's
+ * registered piece type, which only exists inside the game.
+ */
+class StudioStructurePiecesTest {
+    // Same build height as the old_broadcast dimension type
+    private static final LevelHeightAccessor HEIGHT = LevelHeightAccessor.create(0, 256);
+    private static final long[] SEEDS = {0L, 42L, -6813526139423316137L};
+    // A region on each side of the origin, since the region grid is floored
+    private static final int[][] REGIONS = {{0, 0}, {-1, -1}};
+
+    private static MappedRegistry<Biome> biomes;
+    private static HolderGetter<NormalNoise.NoiseParameters> noises;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        biomes = new MappedRegistry<>(Registries.BIOME, Lifecycle.stable());
+        biomes.register(Biomes.PLAINS, new Biome.BiomeBuilder()
+                .hasPrecipitation(false)
+                .temperature(0.5F)
+                .downfall(0.0F)
+                .specialEffects(new BiomeSpecialEffects.Builder().fogColor(0).waterColor(0).waterFogColor(0).skyColor(0).build())
+                .mobSpawnSettings(MobSpawnSettings.EMPTY)
+                .generationSettings(BiomeGenerationSettings.EMPTY)
+                .build(), Lifecycle.stable());
+        biomes.freeze();
+        noises = VanillaRegistries.createLookup().lookupOrThrow(Registries.NOISE);
+    }
+
+    static Stream<Arguments> regions() {
+        List<Arguments> arguments = new ArrayList<>();
+        for (StudioFloorplans.Planner planner : StudioFloorplans.Planner.values()) {
+            for (long seed : SEEDS) {
+                for (int[] region : REGIONS) {
+                    arguments.add(Arguments.of(planner, seed, region[0], region[1]));
+                }
+            }
+        }
+        return arguments.stream();
+    }
+
+    @ParameterizedTest(name = "{0} seed {1} region {2},{3}")
+    @MethodSource("regions")
+    void onePiecePerRoomAndStory(StudioFloorplans.Planner planner, long seed, int regionX, int regionZ) {
+        OldBroadcastChunkGenerator generator = new OldBroadcastChunkGenerator(new OldBroadcastBiomeSource(biomes.getHolderOrThrow(Biomes.PLAINS)),
+                planner, OldBroadcastChunkGenerator.DEFAULT_FLOORS);
+        // The random state a server builds for a world whose generator is not noise-based
+        StudioFloorplans plans = generator.floorplans(RandomState.create(NoiseGeneratorSettings.dummy(), noises, seed));
+        StudioFloorplan plan = plans.get(regionX, regionZ);
+        int floors = Math.min(OldBroadcastChunkGenerator.DEFAULT_FLOORS, StudioColumn.maxFloors(HEIGHT.getMaxBuildHeight()));
+
+        // Pieces per room and story, keyed by room id in the high bits
+        Long2IntOpenHashMap pieces = new Long2IntOpenHashMap();
+        int chunksPerRegion = StudioFloorplan.REGION_SIZE >> 4;
+        for (int cz = regionZ * chunksPerRegion; cz < (regionZ + 1) * chunksPerRegion; cz++) {
+            for (int cx = regionX * chunksPerRegion; cx < (regionX + 1) * chunksPerRegion; cx++) {
+                ChunkPos chunkPos = new ChunkPos(cx, cz);
+                StudioStructure.forEachPiece(plans.forChunk(cx, cz), chunkPos, HEIGHT, (room, story) -> {
+                    assertEquals(new ChunkPos(room.minX() >> 4, room.minZ() >> 4), chunkPos,
+                            () -> "room " + room.id() + " story " + story + " started outside its corner chunk");
+                    pieces.addTo((long) room.id() << 32 | story, 1);
+                });
+            }
+        }
+
+        for (StudioFloorplan.Room room : plan.rooms()) {
+            for (int story = 0; story < floors; story++) {
+                int count = pieces.get((long) room.id() << 32 | story);
+                assertEquals(1, count, "pieces for room " + room.id() + " story " + story);
+            }
+        }
+        assertEquals(plan.rooms().size() * floors, pieces.values().intStream().sum(), "pieces in the region");
+    }
+}